@@ -0,0 +1,214 @@
+package core.aws.client;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import core.aws.util.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * records every aws api call made by sdk clients, including direct calls to client fields, e.g. AWS.getEc2().ec2
+ *
+ * @author neo
+ */
+public final class APIMetrics extends RequestHandler2 {
+    static final Set<String> THROTTLING_ERROR_CODES = Set.of("Throttling", "ThrottlingException", "RequestLimitExceeded", "RequestThrottled", "TooManyRequestsException", "SlowDown", "RequestThrottledException");
+    private static final long[] LATENCY_BUCKETS = {50, 100, 250, 500, 1000, 2500, 5000, 10000};   // upper bound in ms, last bucket is for slower calls
+    private static final HandlerContextKey<Long> START_TIME = new HandlerContextKey<>("startTime");
+
+    static boolean throttled(Exception e) {
+        if (!(e instanceof AmazonServiceException)) return false;
+        String errorCode = ((AmazonServiceException) e).getErrorCode();
+        return errorCode != null && THROTTLING_ERROR_CODES.contains(errorCode);     // Set.of throws on null, error code is null if response can not be parsed
+    }
+
+    private final Logger messageLogger = LoggerFactory.getLogger("message");
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> caller = new ThreadLocal<>();
+
+    // workflow task name for current thread, otherwise thread name is used
+    public void trackCaller(String caller) {
+        if (caller == null) this.caller.remove();
+        else this.caller.set(caller);
+    }
+
+    public String caller() {
+        return caller.get();
+    }
+
+    @Override
+    public void beforeRequest(Request<?> request) {
+        request.addHandlerContext(START_TIME, System.nanoTime());
+    }
+
+    @Override
+    public void afterAttempt(HandlerAfterAttemptContext context) {
+        Metric metric = metric(context.getRequest());
+        metric.attempts.incrementAndGet();
+        if (throttled(context.getException())) metric.throttles.incrementAndGet();
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        completed(request, false);
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        completed(request, true);
+    }
+
+    private void completed(Request<?> request, boolean failed) {
+        Metric metric = metric(request);
+        metric.calls.incrementAndGet();
+        if (failed) metric.errors.incrementAndGet();
+        Long startTime = request.getHandlerContext(START_TIME);
+        if (startTime != null) metric.record((System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private Metric metric(Request<?> request) {
+        String operation = operation(request);
+        String caller = this.caller.get();
+        if (caller == null) caller = Thread.currentThread().getName();
+        String finalCaller = caller;
+        return metrics.computeIfAbsent(operation + "|" + caller, key -> new Metric(key, operation, finalCaller));
+    }
+
+    private String operation(Request<?> request) {
+        String operation = request.getOriginalRequest().getClass().getSimpleName();
+        if (operation.endsWith("Request")) operation = operation.substring(0, operation.length() - "Request".length());
+        return request.getServiceName() + "." + operation;
+    }
+
+    public void printSummary() {
+        if (metrics.isEmpty()) return;
+        messageLogger.info("\naws api calls:\n");
+        printTable("operation", summary(metric -> metric.operation));
+        messageLogger.info("\naws api calls by task:\n");
+        printTable("task", summary(metric -> metric.caller));
+    }
+
+    private void printTable(String name, List<Metric> rows) {
+        int width = Math.max(name.length(), rows.stream().mapToInt(row -> row.name.length()).max().orElse(0));
+        String format = "%-" + width + "s %8s %8s %8s %9s %8s %8s %8s%n";
+        messageLogger.info(String.format(format, name, "calls", "errors", "retries", "throttled", "p50(ms)", "p90(ms)", "max(ms)"));
+        for (Metric row : rows) {
+            messageLogger.info(String.format(format, row.name, row.calls.get(), row.errors.get(), row.retries(), row.throttles.get(),
+                row.percentile(0.5), row.percentile(0.9), row.maxLatency.get()));
+        }
+    }
+
+    // sum metrics per operation or per caller, sorted by calls desc
+    List<Metric> summary(Function<Metric, String> groupBy) {
+        Map<String, List<Metric>> groups = metrics.values().stream().collect(Collectors.groupingBy(groupBy));
+        List<Metric> rows = new ArrayList<>(groups.size());
+        groups.forEach((name, group) -> rows.add(Metric.sum(name, group)));
+        rows.sort(Comparator.comparingLong((Metric row) -> row.calls.get()).reversed());
+        return rows;
+    }
+
+    public void writeJSON(Path path) throws IOException {
+        List<Map<String, Object>> calls = new ArrayList<>();
+        for (Metric metric : metrics.values()) {
+            Map<String, Object> call = new LinkedHashMap<>();
+            call.put("operation", metric.operation);
+            call.put("caller", metric.caller);
+            call.put("calls", metric.calls.get());
+            call.put("errors", metric.errors.get());
+            call.put("retries", metric.retries());
+            call.put("throttles", metric.throttles.get());
+            call.put("totalLatencyInMs", metric.totalLatency.get());
+            call.put("maxLatencyInMs", metric.maxLatency.get());
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                histogram.put("<=" + LATENCY_BUCKETS[i], metric.histogram.get(i));
+            }
+            histogram.put(">" + LATENCY_BUCKETS[LATENCY_BUCKETS.length - 1], metric.histogram.get(LATENCY_BUCKETS.length));
+            call.put("latencyHistogramInMs", histogram);
+            calls.add(call);
+        }
+        Files.createDirectories(path.getParent());
+        Files.write(path, JSON.toJSON(calls).getBytes(StandardCharsets.UTF_8));
+        messageLogger.info("\naws api metrics => {}\n", path);
+    }
+
+    static final class Metric {
+        static Metric sum(String name, Collection<Metric> metrics) {
+            Metric sum = new Metric(name, null, null);
+            for (Metric metric : metrics) {
+                sum.calls.addAndGet(metric.calls.get());
+                sum.attempts.addAndGet(metric.attempts.get());
+                sum.errors.addAndGet(metric.errors.get());
+                sum.throttles.addAndGet(metric.throttles.get());
+                sum.totalLatency.addAndGet(metric.totalLatency.get());
+                sum.maxLatency.accumulateAndGet(metric.maxLatency.get(), Math::max);
+                for (int i = 0; i < sum.histogram.length(); i++) {
+                    sum.histogram.addAndGet(i, metric.histogram.get(i));
+                }
+            }
+            return sum;
+        }
+
+        final String name;
+        final String operation;
+        final String caller;
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong attempts = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong throttles = new AtomicLong();
+        final AtomicLong totalLatency = new AtomicLong();
+        final AtomicLong maxLatency = new AtomicLong();
+        final AtomicLongArray histogram = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+
+        Metric(String name, String operation, String caller) {
+            this.name = name;
+            this.operation = operation;
+            this.caller = caller;
+        }
+
+        void record(long latencyInMs) {
+            totalLatency.addAndGet(latencyInMs);
+            maxLatency.accumulateAndGet(latencyInMs, Math::max);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && latencyInMs > LATENCY_BUCKETS[bucket]) bucket++;
+            histogram.incrementAndGet(bucket);
+        }
+
+        long retries() {
+            return Math.max(0, attempts.get() - calls.get());
+        }
+
+        // upper bound of bucket, max latency for last bucket
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < histogram.length(); i++) total += histogram.get(i);
+            long count = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                count += histogram.get(i);
+                if (count > 0 && count >= total * percentile) return Math.min(LATENCY_BUCKETS[i], maxLatency.get());
+            }
+            return maxLatency.get();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package core.aws.client;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.auth.PropertiesCredentials;
+import com.amazonaws.regions.Regions;
 import core.aws.env.Environment;
 import core.aws.util.Asserts;
 import org.slf4j.Logger;
@@ -12,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Supplier;
 
 /**
  * due to nature of cloud manager, to use plain design to achieve better simplicity and flexibility
@@ -20,28 +23,51 @@ import java.nio.file.Path;
  */
 public class AWS {
     private static final Logger LOGGER = LoggerFactory.getLogger(AWS.class);
-    private static EC2 ec2;
-    private static S3 s3;
-    private static EC2VPC vpc;
-    private static ElasticLoadBalancing elb;
-    private static ElasticLoadBalancingV2 elbV2;
-    private static IAM iam;
-    private static AutoScaling as;
-    private static CloudWatch cloudWatch;
+    static final APIMetrics API_METRICS = new APIMetrics();
+    static final RateLimiter RATE_LIMITER = new RateLimiter();
+    private static final int UNBOUNDED_MAX_CONNECTIONS = 200;
+    // clients are created on first use, most commands only touch few services
+    private static Lazy<EC2> ec2;
+    private static Lazy<S3> s3;
+    private static Lazy<EC2VPC> vpc;
+    private static Lazy<ElasticLoadBalancing> elb;
+    private static Lazy<ElasticLoadBalancingV2> elbV2;
+    private static Lazy<IAM> iam;
+    private static Lazy<AutoScaling> as;
+    private static Lazy<CloudWatch> cloudWatch;
 
     public static void initialize(Environment env) throws IOException {
         Asserts.isNull(ec2, "initialize should only be called once");
 
         LOGGER.info("initialize aws clients");
         AWSCredentialsProvider provider = loadAWSCredentials(env.envDir);
-        ec2 = new EC2(provider, env.region);
-        vpc = new EC2VPC(provider, env.region);
-        elb = new ElasticLoadBalancing(provider, env.region);
-        elbV2 = new ElasticLoadBalancingV2(provider, env.region);
-        s3 = new S3(provider, env.region);
-        iam = new IAM(provider, env.region);
-        as = new AutoScaling(provider, env.region);
-        cloudWatch = new CloudWatch(provider, env.region);
+        Regions region = env.region;
+        ClientConfiguration config = clientConfiguration(env);
+        ec2 = new Lazy<>("ec2", () -> new EC2(provider, region, config));
+        vpc = new Lazy<>("vpc", () -> new EC2VPC(provider, region, config));
+        elb = new Lazy<>("elb", () -> new ElasticLoadBalancing(provider, region, config));
+        elbV2 = new Lazy<>("elbV2", () -> new ElasticLoadBalancingV2(provider, region, config));
+        s3 = new Lazy<>("s3", () -> new S3(provider, region, config));
+        iam = new Lazy<>("iam", () -> new IAM(provider, region, config));
+        as = new Lazy<>("as", () -> new AutoScaling(provider, region, config));
+        cloudWatch = new Lazy<>("cloudWatch", () -> new CloudWatch(provider, region, config));
+    }
+
+    // all clients share one config, each client has its own connection pool, size it to number of concurrent tasks
+    static ClientConfiguration clientConfiguration(Environment env) {
+        Environment.AWSClient client = env.awsClient;
+        int maxConnections = client.maxConnections != null ? client.maxConnections
+            : env.workflowConcurrency == Environment.UNBOUNDED_CONCURRENCY ? UNBOUNDED_MAX_CONNECTIONS
+            : Math.max(ClientConfiguration.DEFAULT_MAX_CONNECTIONS, env.workflowConcurrency * 2);
+        ClientConfiguration config = new ClientConfiguration()
+            .withMaxConnections(maxConnections)
+            .withTcpKeepAlive(client.tcpKeepAlive)
+            .withSocketTimeout((int) client.socketTimeout.toMillis())
+            .withGzip(client.gzip);
+        if (client.requestTimeout != null) config.setRequestTimeout((int) client.requestTimeout.toMillis());
+        LOGGER.info("aws client config, maxConnections={}, tcpKeepAlive={}, socketTimeout={}, requestTimeout={}, gzip={}",
+            maxConnections, client.tcpKeepAlive, client.socketTimeout, client.requestTimeout, client.gzip);
+        return config;
     }
 
     private static AWSCredentialsProvider loadAWSCredentials(Path envDir) throws IOException {
@@ -58,35 +84,62 @@ public class AWS {
         return provider;
     }
 
+    public static APIMetrics getApiMetrics() {
+        return API_METRICS;
+    }
+
     public static EC2 getEc2() {
-        return ec2;
+        return ec2.get();
     }
 
     public static S3 getS3() {
-        return s3;
+        return s3.get();
     }
 
     public static EC2VPC getVpc() {
-        return vpc;
+        return vpc.get();
     }
 
     public static ElasticLoadBalancing getElb() {
-        return elb;
+        return elb.get();
     }
 
     public static ElasticLoadBalancingV2 getElbV2() {
-        return elbV2;
+        return elbV2.get();
     }
 
     public static IAM getIam() {
-        return iam;
+        return iam.get();
     }
 
     public static AutoScaling getAs() {
-        return as;
+        return as.get();
     }
 
     public static CloudWatch getCloudWatch() {
-        return cloudWatch;
+        return cloudWatch.get();
+    }
+
+    static final class Lazy<T> {
+        private final String name;
+        private final Supplier<T> supplier;
+        private volatile T value;
+
+        Lazy(String name, Supplier<T> supplier) {
+            this.name = name;
+            this.supplier = supplier;
+        }
+
+        T get() {
+            T result = value;
+            if (result != null) return result;
+            synchronized (this) {
+                if (value == null) {
+                    LOGGER.info("create aws client, client={}", name);
+                    value = supplier.get();
+                }
+                return value;
+            }
+        }
     }
 }
@@ -0,0 +1,114 @@
+package core.aws.client;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * bridge sdk async clients to CompletableFuture, all async clients share one bounded executor
+ *
+ * @author neo
+ */
+final class Async {
+    static final ExecutorService EXECUTOR = new CallerExecutor(32);
+
+    static <Q extends AmazonWebServiceRequest, R> CompletableFuture<R> call(Call<Q, R> call, Q request) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        call.call(request, new AsyncHandler<Q, R>() {
+            @Override
+            public void onError(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onSuccess(Q request, R result) {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    // request next page until nextToken is null, page function takes nextToken, null for first page
+    static <R, T> CompletableFuture<List<T>> paginate(Function<String, CompletableFuture<R>> page, Function<R, List<T>> items, Function<R, String> nextToken) {
+        return paginate(page, items, nextToken, null, new ArrayList<>());
+    }
+
+    private static <R, T> CompletableFuture<List<T>> paginate(Function<String, CompletableFuture<R>> page, Function<R, List<T>> items, Function<R, String> nextToken, String token, List<T> results) {
+        return page.apply(token).thenCompose(result -> {
+            results.addAll(items.apply(result));
+            String next = nextToken.apply(result);
+            if (next == null || next.isEmpty()) return CompletableFuture.completedFuture(results);
+            return paginate(page, items, nextToken, next, results);
+        });
+    }
+
+    @FunctionalInterface
+    interface Call<Q extends AmazonWebServiceRequest, R> {
+        Future<R> call(Q request, AsyncHandler<Q, R> handler);
+    }
+
+    // sdk submits call on caller thread, keep api metrics caller of it for the executor thread
+    static final class CallerExecutor extends AbstractExecutorService {
+        private final ThreadPoolExecutor executor;
+
+        CallerExecutor(int threads) {
+            AtomicInteger sequence = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "aws-async-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            String caller = AWS.API_METRICS.caller();
+            String finalCaller = caller == null ? Thread.currentThread().getName() : caller;
+            executor.execute(() -> {
+                AWS.API_METRICS.trackCaller(finalCaller);
+                try {
+                    command.run();
+                } finally {
+                    AWS.API_METRICS.trackCaller(null);
+                }
+            });
+        }
+
+        // shared by all clients, it lives with process
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
@@ -2,9 +2,12 @@ package core.aws.client;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.autoscaling.AmazonAutoScaling;
+import com.amazonaws.services.autoscaling.AmazonAutoScalingAsync;
+import com.amazonaws.services.autoscaling.AmazonAutoScalingAsyncClientBuilder;
 import com.amazonaws.services.autoscaling.AmazonAutoScalingClientBuilder;
 import com.amazonaws.services.autoscaling.model.AutoScalingGroup;
 import com.amazonaws.services.autoscaling.model.CreateAutoScalingGroupRequest;
@@ -16,11 +19,17 @@ import com.amazonaws.services.autoscaling.model.DeletePolicyRequest;
 import com.amazonaws.services.autoscaling.model.DescribeAutoScalingGroupsRequest;
 import com.amazonaws.services.autoscaling.model.DescribeAutoScalingGroupsResult;
 import com.amazonaws.services.autoscaling.model.DescribeLaunchConfigurationsRequest;
+import com.amazonaws.services.autoscaling.model.DescribeLaunchConfigurationsResult;
 import com.amazonaws.services.autoscaling.model.DescribePoliciesRequest;
+import com.amazonaws.services.autoscaling.model.DescribePoliciesResult;
+import com.amazonaws.services.autoscaling.model.DescribeTagsRequest;
+import com.amazonaws.services.autoscaling.model.DescribeTagsResult;
+import com.amazonaws.services.autoscaling.model.Filter;
 import com.amazonaws.services.autoscaling.model.LaunchConfiguration;
 import com.amazonaws.services.autoscaling.model.PutScalingPolicyRequest;
 import com.amazonaws.services.autoscaling.model.ScalingPolicy;
 import com.amazonaws.services.autoscaling.model.Tag;
+import com.amazonaws.services.autoscaling.model.TagDescription;
 import com.amazonaws.services.autoscaling.model.TerminateInstanceInAutoScalingGroupRequest;
 import com.amazonaws.services.autoscaling.model.UpdateAutoScalingGroupRequest;
 import core.aws.util.Exceptions;
@@ -31,18 +40,34 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
  */
 public class AutoScaling {
+    private static final int MAX_DESCRIBE_AS_GROUP_NAMES = 50;
+    private static final int MAX_DESCRIBE_POLICIES_RECORDS = 100;
+    private static final int MAX_DESCRIBE_POLICIES_BY_GROUP = 20;
     public final AmazonAutoScaling autoScaling;
+    public final AmazonAutoScalingAsync autoScalingAsync;
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Batcher<String, AutoScalingGroup> asGroupBatcher = new Batcher<>("describe-as-groups", Duration.ofSeconds(1), MAX_DESCRIBE_AS_GROUP_NAMES, this::loadASGroups);
+    private final DescribeCache<String, AutoScalingGroup> asGroupCache = new DescribeCache<>("as-groups", Duration.ofSeconds(5));  // shorter than waiter intervals, only saves repeated lookups in same step
 
-    public AutoScaling(AWSCredentialsProvider credentials, Regions region) {
-        autoScaling = AmazonAutoScalingClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    public AutoScaling(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        this(AmazonAutoScalingClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build(),
+            AmazonAutoScalingAsyncClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).withExecutorFactory(() -> Async.EXECUTOR).build());
+    }
+
+    AutoScaling(AmazonAutoScaling autoScaling, AmazonAutoScalingAsync autoScalingAsync) {
+        this.autoScaling = autoScaling;
+        this.autoScalingAsync = autoScalingAsync;
     }
 
     public AutoScalingGroup createASGroup(CreateAutoScalingGroupRequest request) {
@@ -78,13 +103,59 @@ public class AutoScaling {
         return asGroups;
     }
 
+    public CompletableFuture<List<AutoScalingGroup>> listASGroupsAsync() {
+        logger.info("list all auto scaling groups async");
+        return Async.paginate(nextToken -> Async.call(autoScalingAsync::describeAutoScalingGroupsAsync, new DescribeAutoScalingGroupsRequest().withNextToken(nextToken)),
+            DescribeAutoScalingGroupsResult::getAutoScalingGroups, DescribeAutoScalingGroupsResult::getNextToken);
+    }
+
+    // find groups by tag on server side, then describe them by name in batches
+    public List<AutoScalingGroup> listASGroupsByTag(String key, String value) {
+        logger.info("list auto scaling groups by tag, key={}, value={}", key, value);
+        List<String> asGroupNames = new ArrayList<>();
+        String nextToken = null;
+        while (true) {
+            DescribeTagsResult result = autoScaling.describeTags(new DescribeTagsRequest()
+                .withFilters(new Filter().withName("key").withValues(key), new Filter().withName("value").withValues(value))
+                .withMaxRecords(100)
+                .withNextToken(nextToken));
+            for (TagDescription tag : result.getTags()) {
+                if ("auto-scaling-group".equals(tag.getResourceType())) asGroupNames.add(tag.getResourceId());
+            }
+            nextToken = result.getNextToken();
+            if (nextToken == null) break;
+        }
+
+        List<AutoScalingGroup> asGroups = new ArrayList<>(asGroupNames.size());
+        for (List<String> batch : Batches.partition(asGroupNames, MAX_DESCRIBE_AS_GROUP_NAMES)) {
+            nextToken = null;
+            while (true) {
+                DescribeAutoScalingGroupsResult result = autoScaling.describeAutoScalingGroups(new DescribeAutoScalingGroupsRequest()
+                    .withAutoScalingGroupNames(batch)
+                    .withMaxRecords(100)
+                    .withNextToken(nextToken));
+                asGroups.addAll(result.getAutoScalingGroups());
+                nextToken = result.getNextToken();
+                if (nextToken == null) break;
+            }
+        }
+        return asGroups;
+    }
+
+    // batched with concurrent callers, e.g. deploying multiple groups in parallel
     public AutoScalingGroup describeASGroup(String asGroupName) {
-        logger.info("describe auto scaling group, name={}", asGroupName);
-        List<AutoScalingGroup> groups = autoScaling.describeAutoScalingGroups(new DescribeAutoScalingGroupsRequest()
-            .withAutoScalingGroupNames(asGroupName))
-                                                   .getAutoScalingGroups();
-        if (groups.isEmpty()) return null;
-        return groups.get(0);
+        return asGroupCache.get(asGroupName, asGroupBatcher::getAll);
+    }
+
+    private Map<String, AutoScalingGroup> loadASGroups(List<String> asGroupNames) {
+        logger.info("describe auto scaling groups, names={}", asGroupNames);
+        Map<String, AutoScalingGroup> groups = Maps.newHashMap();
+        autoScaling.describeAutoScalingGroups(new DescribeAutoScalingGroupsRequest()
+            .withAutoScalingGroupNames(asGroupNames)
+            .withMaxRecords(100))
+                   .getAutoScalingGroups()
+                   .forEach(group -> groups.put(group.getAutoScalingGroupName(), group));
+        return groups;
     }
 
     public Map<String, LaunchConfiguration> describeLaunchConfigs(List<String> launchConfigNames) {
@@ -104,6 +175,20 @@ public class AutoScaling {
         return results;
     }
 
+    public CompletableFuture<Map<String, LaunchConfiguration>> describeLaunchConfigsAsync(List<String> launchConfigNames) {
+        if (launchConfigNames.isEmpty()) throw new Error("launchConfigNames must not be empty");
+        logger.info("describe launch configs async, names={}", launchConfigNames);
+        CompletableFuture<DescribeLaunchConfigurationsResult> future = Async.call(autoScalingAsync::describeLaunchConfigurationsAsync, new DescribeLaunchConfigurationsRequest()
+            .withLaunchConfigurationNames(launchConfigNames));
+        return future.thenApply(result -> {
+            Map<String, LaunchConfiguration> results = Maps.newHashMap();
+            result.getLaunchConfigurations().forEach(config -> results.put(config.getLaunchConfigurationName(), config));
+            if (results.size() != launchConfigNames.size())
+                throw Exceptions.error("some launch config does not exist, foundNames={}", results.keySet());
+            return results;
+        });
+    }
+
     public LaunchConfiguration describeLaunchConfig(String launchConfigName) {
         logger.info("describe launch config, name={}", launchConfigName);
         return autoScaling.describeLaunchConfigurations(new DescribeLaunchConfigurationsRequest()
@@ -116,6 +201,29 @@ public class AutoScaling {
         return autoScaling.describePolicies(new DescribePoliciesRequest().withAutoScalingGroupName(asGroupName)).getScalingPolicies();
     }
 
+    // describePolicies only accepts one group name, describe few groups concurrently, otherwise list policies of all groups and filter on client side
+    public CompletableFuture<List<ScalingPolicy>> describeScalingPoliciesAsync(List<String> asGroupNames) {
+        if (asGroupNames.size() > MAX_DESCRIBE_POLICIES_BY_GROUP) {
+            logger.info("list all auto scaling policies async, asGroups={}", asGroupNames.size());
+            Set<String> names = new HashSet<>(asGroupNames);
+            return describePoliciesAsync(null).thenApply(policies -> policies.stream()
+                .filter(policy -> names.contains(policy.getAutoScalingGroupName()))
+                .collect(Collectors.toList()));
+        }
+
+        logger.info("describe auto scaling policies async, asGroupNames={}", asGroupNames);
+        List<CompletableFuture<List<ScalingPolicy>>> futures = asGroupNames.stream().map(this::describePoliciesAsync).collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                                .thenApply(ignored -> futures.stream().flatMap(future -> future.join().stream()).collect(Collectors.toList()));
+    }
+
+    // null group name means all groups
+    private CompletableFuture<List<ScalingPolicy>> describePoliciesAsync(String asGroupName) {
+        return Async.paginate(nextToken -> Async.call(autoScalingAsync::describePoliciesAsync, new DescribePoliciesRequest()
+                .withAutoScalingGroupName(asGroupName).withMaxRecords(MAX_DESCRIBE_POLICIES_RECORDS).withNextToken(nextToken)),
+            DescribePoliciesResult::getScalingPolicies, DescribePoliciesResult::getNextToken);
+    }
+
     public void updateASGroup(UpdateAutoScalingGroupRequest request) throws Exception {
         new Runner<>()
             .retryInterval(Duration.ofSeconds(5))
@@ -124,6 +232,7 @@ public class AutoScaling {
             .run(() -> {
                 logger.info("update auto scaling group, request={}", request);
                 autoScaling.updateAutoScalingGroup(request);
+                asGroupCache.invalidate(List.of(request.getAutoScalingGroupName()));
                 return null;
             });
     }
@@ -144,6 +253,7 @@ public class AutoScaling {
         logger.info("update auto scaling group tag, asGroup={}, key={}, value={}", asGroupName, tag.getKey(), tag.getValue());
         tag.withResourceId(asGroupName).withResourceType("auto-scaling-group");
         autoScaling.createOrUpdateTags(new CreateOrUpdateTagsRequest().withTags(tag));
+        asGroupCache.invalidate(List.of(asGroupName));
     }
 
     public void deleteLaunchConfig(String launchConfigName) {
@@ -163,6 +273,7 @@ public class AutoScaling {
                 logger.warn("failed to terminate instance in auto scaling group, it could be already terminated by auto scaling group, instanceId={}", instanceId, e);
             }
         }
+        asGroupCache.invalidateAll();   // request has no group name
     }
 
     public void deleteAutoScalingGroup(String asGroupName) {
@@ -170,5 +281,6 @@ public class AutoScaling {
         autoScaling.deleteAutoScalingGroup(new DeleteAutoScalingGroupRequest()
             .withAutoScalingGroupName(asGroupName)
             .withForceDelete(Boolean.TRUE));
+        asGroupCache.invalidate(List.of(asGroupName));
     }
 }
@@ -0,0 +1,156 @@
+package core.aws.client;
+
+import com.amazonaws.AmazonServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * gather concurrent describe requests within window into one aws call, e.g. many tasks polling instance status at same time,
+ * same keys requested by multiple callers share one result
+ *
+ * @author neo
+ */
+public class Batcher<K, V> {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(1, runnable -> {
+        Thread thread = new Thread(runnable, "batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // aws call runs off scheduler thread, so slow or split batch does not delay flush of other batchers
+    private static final ExecutorService LOADER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "batcher-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // aws rejects whole call if one id is invalid, e.g. InvalidInstanceID.NotFound, InvalidSubnetID.Malformed, or InvalidInstance of elb
+    private static final Pattern INVALID_ID_ERROR_CODE = Pattern.compile("Invalid\\w*ID\\.(NotFound|Malformed)|InvalidInstance");
+
+    private final Logger logger = LoggerFactory.getLogger(Batcher.class);
+    private final String name;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<K>, Map<K, V>> loader;
+    private Batch pending;
+
+    // loader returns results by key, missing key means not found
+    public Batcher(String name, Duration window, int maxBatchSize, Function<List<K>, Map<K, V>> loader) {
+        this.name = name;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.loader = loader;
+    }
+
+    public V get(K key) {
+        return getAll(List.of(key)).get(key);
+    }
+
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        List<Batch> fullBatches = new ArrayList<>();
+        synchronized (this) {
+            for (K key : keys) {
+                if (pending == null) {
+                    Batch batch = new Batch();
+                    pending = batch;
+                    SCHEDULER.schedule(() -> LOADER.execute(() -> flush(batch)), window.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                futures.put(key, pending.futures.computeIfAbsent(key, k -> new CompletableFuture<>()));
+                if (pending.futures.size() >= maxBatchSize) {
+                    fullBatches.add(pending);
+                    pending = null;
+                }
+            }
+        }
+        fullBatches.forEach(this::flush);   // no need to wait for window if batch is full
+
+        Map<K, V> results = new HashMap<>();
+        futures.forEach((key, future) -> {
+            V value = await(future);
+            if (value != null) results.put(key, value);
+        });
+        return results;
+    }
+
+    private void flush(Batch batch) {
+        if (!batch.flushed.compareAndSet(false, true)) return;     // full batch may be flushed before window ends
+        synchronized (this) {
+            if (pending == batch) pending = null;
+        }
+
+        List<K> keys = new ArrayList<>(batch.futures.keySet());
+        logger.info("flush batch, batcher={}, keys={}", name, keys);
+        String caller = AWS.API_METRICS.caller();
+        AWS.API_METRICS.trackCaller("batch-" + name);
+        try {
+            load(keys, batch.futures);
+        } finally {
+            AWS.API_METRICS.trackCaller(caller);
+        }
+    }
+
+    // split batch in halves on invalid id error, so only callers of invalid keys get error, other errors e.g. throttling go to all callers
+    private void load(List<K> keys, Map<K, CompletableFuture<V>> futures) {
+        try {
+            Map<K, V> results = loader.apply(keys);
+            keys.forEach(key -> futures.get(key).complete(results.get(key)));
+        } catch (RuntimeException e) {
+            if (keys.size() > 1 && invalidKey(e, keys)) {
+                logger.warn("batch has invalid key, split batch, batcher={}, keys={}, error={}", name, keys.size(), e.getMessage());
+                int middle = keys.size() / 2;
+                load(keys.subList(0, middle), futures);
+                load(keys.subList(middle, keys.size()), futures);
+            } else {
+                keys.forEach(key -> futures.get(key).completeExceptionally(e));
+            }
+        } catch (Error e) {
+            keys.forEach(key -> futures.get(key).completeExceptionally(e));
+        }
+    }
+
+    // ValidationError is also used for other invalid params, only split if it names one of keys
+    static boolean invalidKey(RuntimeException e, List<?> keys) {
+        if (!(e instanceof AmazonServiceException)) return false;
+        AmazonServiceException exception = (AmazonServiceException) e;
+        String errorCode = exception.getErrorCode();
+        if (errorCode == null) return false;
+        if (INVALID_ID_ERROR_CODE.matcher(errorCode).matches()) return true;
+        String message = exception.getErrorMessage();
+        return "ValidationError".equals(errorCode) && message != null && keys.stream().anyMatch(key -> message.contains(String.valueOf(key)));
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("batch is interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private final class Batch {
+        final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        final AtomicBoolean flushed = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,50 @@
+package core.aws.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author neo
+ */
+final class Batches {
+    static <T> List<List<T>> partition(List<T> items, int batchSize) {
+        List<List<T>> batches = new ArrayList<>((items.size() + batchSize - 1) / batchSize);
+        for (int i = 0; i < items.size(); i += batchSize) {
+            batches.add(items.subList(i, Math.min(i + batchSize, items.size())));
+        }
+        return batches;
+    }
+
+    // call aws for each batch concurrently, aws client is blocking, so use short lived threads and keep api metrics caller of current thread
+    static <T, R> List<R> call(List<List<T>> batches, int concurrency, Function<List<T>, R> call) {
+        if (batches.isEmpty()) return new ArrayList<>();
+        if (batches.size() == 1) return List.of(call.apply(batches.get(0)));
+
+        String caller = AWS.API_METRICS.caller();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(batches.size(), concurrency));
+        try {
+            List<CompletableFuture<R>> futures = batches.stream()
+                .map(batch -> CompletableFuture.supplyAsync(() -> {
+                    AWS.API_METRICS.trackCaller(caller);
+                    try {
+                        return call.apply(batch);
+                    } finally {
+                        AWS.API_METRICS.trackCaller(null);
+                    }
+                }, executor))
+                .collect(Collectors.toList());
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
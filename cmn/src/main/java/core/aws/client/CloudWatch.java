@@ -1,5 +1,6 @@
 package core.aws.client;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
@@ -18,8 +19,8 @@ public class CloudWatch {
     public final AmazonCloudWatch cloudWatch;
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    public CloudWatch(AWSCredentialsProvider credentials, Regions region) {
-        cloudWatch = AmazonCloudWatchClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    public CloudWatch(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        cloudWatch = AmazonCloudWatchClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build();
     }
 
     public void createAlarm(PutMetricAlarmRequest request) {
@@ -0,0 +1,92 @@
+package core.aws.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * cache read only describe results within one run, e.g. same instances described by loader, ssh and upload tasks,
+ * client invalidates keys on its own mutating calls, ttl bounds staleness from changes made outside (aws console, auto scaling)
+ *
+ * @author neo
+ */
+final class DescribeCache<K, V> {
+    private final Logger logger = LoggerFactory.getLogger(DescribeCache.class);
+    private final String name;
+    private final long ttl;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();   // changed by invalidation, to drop results loaded before it
+    private Predicate<V> cacheable = value -> true;
+
+    DescribeCache(String name, Duration ttl) {
+        this.name = name;
+        this.ttl = ttl.toNanos();
+    }
+
+    // e.g. not to cache resource in transitional state, which is polled until it becomes stable
+    DescribeCache<K, V> cacheable(Predicate<V> cacheable) {
+        this.cacheable = cacheable;
+        return this;
+    }
+
+    V get(K key, Function<List<K>, Map<K, V>> loader) {
+        return getAll(List.of(key), loader).get(key);
+    }
+
+    // loader returns results by key, missing key means not found which is not cached
+    Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader) {
+        long now = System.nanoTime();
+        Map<K, V> results = new LinkedHashMap<>();
+        List<K> missingKeys = new ArrayList<>();
+        for (K key : keys) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now - entry.createdTime < ttl) results.put(key, entry.value);
+            else if (!missingKeys.contains(key)) missingKeys.add(key);
+        }
+        if (!results.isEmpty()) logger.info("describe cache hit, cache={}, keys={}", name, results.keySet());
+        if (missingKeys.isEmpty()) return results;
+
+        long version = this.version.get();
+        Map<K, V> loadedResults = loader.apply(missingKeys);
+        if (this.version.get() == version) putAll(loadedResults);
+        results.putAll(loadedResults);
+        return results;
+    }
+
+    void putAll(Map<K, V> values) {
+        long now = System.nanoTime();
+        values.forEach((key, value) -> {
+            if (cacheable.test(value)) entries.put(key, new Entry<>(value, now));
+        });
+    }
+
+    void invalidate(Collection<K> keys) {
+        version.incrementAndGet();
+        keys.forEach(entries::remove);
+    }
+
+    void invalidateAll() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long createdTime;
+
+        Entry(V value, long createdTime) {
+            this.value = value;
+            this.createdTime = createdTime;
+        }
+    }
+}
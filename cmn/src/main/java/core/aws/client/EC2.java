@@ -1,9 +1,12 @@
 package core.aws.client;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.AmazonEC2Async;
+import com.amazonaws.services.ec2.AmazonEC2AsyncClientBuilder;
 import com.amazonaws.services.ec2.AmazonEC2ClientBuilder;
 import com.amazonaws.services.ec2.model.AuthorizeSecurityGroupIngressRequest;
 import com.amazonaws.services.ec2.model.AvailabilityZone;
@@ -42,15 +45,19 @@ import com.amazonaws.services.ec2.model.Tag;
 import com.amazonaws.services.ec2.model.TagDescription;
 import com.amazonaws.services.ec2.model.TerminateInstancesRequest;
 import core.aws.resource.ec2.InstanceState;
-import core.aws.util.Asserts;
 import core.aws.util.Runner;
-import core.aws.util.Threads;
+import core.aws.util.Waiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -58,11 +65,21 @@ import java.util.stream.Collectors;
  */
 public class EC2 {
     public final AmazonEC2 ec2;
+    public final AmazonEC2Async ec2Async;
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Batcher<String, InstanceStatus> instanceStatusBatcher = new Batcher<>("describe-instance-status", Duration.ofSeconds(1), 100, this::loadInstanceStatuses);
+    private final Batcher<String, Instance> instanceBatcher = new Batcher<>("describe-instances", Duration.ofSeconds(1), 200, this::loadInstances);
+    private final DescribeCache<String, Instance> instanceCache = new DescribeCache<>("instances", Duration.ofSeconds(30));
     private volatile List<String> availabilityZones;
 
-    EC2(AWSCredentialsProvider credentials, Regions region) {
-        ec2 = AmazonEC2ClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    EC2(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        this(AmazonEC2ClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build(),
+            AmazonEC2AsyncClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).withExecutorFactory(() -> Async.EXECUTOR).build());
+    }
+
+    EC2(AmazonEC2 ec2, AmazonEC2Async ec2Async) {
+        this.ec2 = ec2;
+        this.ec2Async = ec2Async;
     }
 
     public List<String> availabilityZones() {
@@ -110,8 +127,8 @@ public class EC2 {
             .retryOn(this::retryOnRunInstance)
             .run(() -> ec2.runInstances(request));
 
-        Threads.sleepRoughly(Duration.ofSeconds(5)); // wait little bit to make sure instance is visible to tag service
         List<String> instanceIds = result.getReservation().getInstances().stream().map(Instance::getInstanceId).collect(Collectors.toList());
+        waitUntilVisible(instanceIds);  // make sure instance is visible to tag service
 
         CreateTagsRequest tagsRequest = new CreateTagsRequest()
             .withResources(instanceIds)
@@ -121,7 +138,9 @@ public class EC2 {
 
         waitUntilRunning(instanceIds);
 
-        return describeInstances(instanceIds);
+        Map<String, Instance> instances = loadInstances(instanceIds);
+        instanceCache.putAll(instances);
+        return new ArrayList<>(instances.values());
     }
 
     private boolean retryOnRunInstance(Exception e) {
@@ -140,6 +159,7 @@ public class EC2 {
         if (instanceIds.isEmpty()) throw new Error("instanceIds must not be empty");
         logger.info("stop instances, instanceIds={}", instanceIds);
         ec2.stopInstances(new StopInstancesRequest().withInstanceIds(instanceIds));
+        instanceCache.invalidate(instanceIds);
         waitUntil(instanceIds, InstanceState.STOPPED);
     }
 
@@ -147,12 +167,14 @@ public class EC2 {
         if (instanceIds.isEmpty()) throw new Error("instanceIds must not be empty");
         logger.info("start instances, instanceIds={}", instanceIds);
         ec2.startInstances(new StartInstancesRequest().withInstanceIds(instanceIds));
+        instanceCache.invalidate(instanceIds);
         waitUntilRunning(instanceIds);
     }
 
     public void terminateInstances(List<String> instanceIds) throws InterruptedException {
         logger.info("terminate instances, instanceIds={}", instanceIds);
         ec2.terminateInstances(new TerminateInstancesRequest().withInstanceIds(instanceIds));
+        instanceCache.invalidate(instanceIds);
         waitUntil(instanceIds, InstanceState.TERMINATED);
     }
 
@@ -194,25 +216,68 @@ public class EC2 {
             .run(() -> {
                 logger.info("create tags, request={}", request);
                 ec2.createTags(request);
+                instanceCache.invalidate(request.getResources());
                 return null;
             });
     }
 
     public List<TagDescription> describeTags(DescribeTagsRequest request) {
+        List<TagDescription> tags = new ArrayList<>();
+        describeTags(request, tags::addAll);
+        return tags;
+    }
+
+    // pass each page to consumer as soon as it arrives, so caller can process tags while paginating
+    public void describeTags(DescribeTagsRequest request, Consumer<List<TagDescription>> consumer) {
         logger.info("describe tags, request={}", request);
-        DescribeTagsResult result = ec2.describeTags(request);
-        Asserts.isNull(result.getNextToken(), "tags pagination is not supported yet, token={}", result.getNextToken());
-        return result.getTags();
+        String nextToken = null;
+        do {
+            DescribeTagsResult result = ec2.describeTags(request.withNextToken(nextToken));
+            consumer.accept(result.getTags());
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
     }
 
+    // cached within run, polling goes through loadInstances to get current state
     public List<Instance> describeInstances(Collection<String> instanceIds) {
         if (instanceIds.isEmpty())
             throw new IllegalArgumentException("instanceIds can not be empty, otherwise it requires all instances");
+        return new ArrayList<>(instanceCache.getAll(instanceIds, this::loadInstances).values());
+    }
+
+    private Map<String, Instance> loadInstances(List<String> instanceIds) {
         logger.info("describe instances, instanceIds={}", instanceIds);
         DescribeInstancesResult result = ec2.describeInstances(new DescribeInstancesRequest().withInstanceIds(instanceIds));
-        return result.getReservations().stream()
+        Map<String, Instance> instances = new LinkedHashMap<>();
+        result.getReservations().forEach(reservation -> reservation.getInstances().forEach(instance -> instances.put(instance.getInstanceId(), instance)));
+        return instances;
+    }
+
+    public CompletableFuture<List<Instance>> describeInstancesAsync(Collection<String> instanceIds) {
+        if (instanceIds.isEmpty())
+            throw new IllegalArgumentException("instanceIds can not be empty, otherwise it requires all instances");
+        logger.info("describe instances async, instanceIds={}", instanceIds);
+        CompletableFuture<DescribeInstancesResult> future = Async.call(ec2Async::describeInstancesAsync, new DescribeInstancesRequest().withInstanceIds(instanceIds));
+        return future.thenApply(result -> result.getReservations().stream()
             .flatMap(reservation -> reservation.getInstances().stream())
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
+    }
+
+    public CompletableFuture<List<TagDescription>> describeTagsAsync(DescribeTagsRequest request) {
+        logger.info("describe tags async, request={}", request);
+        return Async.paginate(nextToken -> Async.call(ec2Async::describeTagsAsync, request.clone().withNextToken(nextToken)),
+            DescribeTagsResult::getTags, DescribeTagsResult::getNextToken);
+    }
+
+    // batched with concurrent callers, for polling tasks, only returns status of running instances
+    public Map<String, InstanceStatus> describeInstanceStatus(Collection<String> instanceIds) {
+        return instanceStatusBatcher.getAll(instanceIds);
+    }
+
+    private Map<String, InstanceStatus> loadInstanceStatuses(List<String> instanceIds) {
+        logger.info("describe instance status, instanceIds={}", instanceIds);
+        return ec2.describeInstanceStatus(new DescribeInstanceStatusRequest().withInstanceIds(instanceIds)).getInstanceStatuses().stream()
+            .collect(Collectors.toMap(InstanceStatus::getInstanceId, status -> status));
     }
 
     public List<Image> describeImages(Collection<String> imageIds) {
@@ -223,6 +288,14 @@ public class EC2 {
         return result.getImages();
     }
 
+    public CompletableFuture<List<Image>> describeImagesAsync(Collection<String> imageIds) {
+        if (imageIds.isEmpty())
+            throw new IllegalArgumentException("imageIds can not be empty, otherwise it requires all images");
+        logger.info("describe images async, imageIds={}", imageIds);
+        CompletableFuture<DescribeImagesResult> future = Async.call(ec2Async::describeImagesAsync, new DescribeImagesRequest().withImageIds(imageIds));
+        return future.thenApply(DescribeImagesResult::getImages);
+    }
+
     public void deleteImage(Image image) {
         String imageId = image.getImageId();
         logger.info("delete image, imageId={}", imageId);
@@ -241,51 +314,61 @@ public class EC2 {
     }
 
     public void waitUntilRunning(List<String> instanceIds) throws InterruptedException {
-        int attempts = 0;
-        while (true) {
-            attempts++;
-            Threads.sleepRoughly(Duration.ofSeconds(30));
-            List<InstanceStatus> statuses = ec2.describeInstanceStatus(new DescribeInstanceStatusRequest()
-                .withInstanceIds(instanceIds)).getInstanceStatuses();
-
-            if (statuses.size() < instanceIds.size()) {
-                logger.info("status is not synced, continue to wait");
-                continue;
-            }
-
-            for (InstanceStatus status : statuses) {
-                logger.info("instance status {} => {}, checks => {}, {}",
-                    status.getInstanceId(),
-                    status.getInstanceState().getName(),
-                    status.getSystemStatus().getStatus(),
-                    status.getInstanceStatus().getStatus());
-            }
-
-            boolean allOK = statuses.stream().allMatch(status ->
-                "running".equalsIgnoreCase(status.getInstanceState().getName())
-                    && "ok".equalsIgnoreCase(status.getSystemStatus().getStatus())
-                    && "ok".equalsIgnoreCase(status.getInstanceStatus().getStatus()));
+        new Waiter("instance-running")
+            .initialInterval(Duration.ofSeconds(10))
+            .maxInterval(Duration.ofSeconds(30))
+            .timeout(Duration.ofMinutes(10))
+            .until(() -> {
+                Collection<InstanceStatus> statuses = describeInstanceStatus(instanceIds).values();
+
+                if (statuses.size() < instanceIds.size()) {
+                    logger.info("status is not synced, continue to wait");
+                    return false;
+                }
+
+                for (InstanceStatus status : statuses) {
+                    logger.info("instance status {} => {}, checks => {}, {}",
+                        status.getInstanceId(),
+                        status.getInstanceState().getName(),
+                        status.getSystemStatus().getStatus(),
+                        status.getInstanceStatus().getStatus());
+                }
+
+                return statuses.stream().allMatch(status ->
+                    "running".equalsIgnoreCase(status.getInstanceState().getName())
+                        && "ok".equalsIgnoreCase(status.getSystemStatus().getStatus())
+                        && "ok".equalsIgnoreCase(status.getInstanceStatus().getStatus()));
+            });
+    }
 
-            if (allOK) {
-                break;
-            } else if (attempts > 20) { // roughly after 10 mins
-                throw new Error("waited too long to get instance status, something is wrong, please check aws console");
-            }
-        }
+    private void waitUntilVisible(List<String> instanceIds) {
+        new Waiter("instance-visible")
+            .initialInterval(Duration.ofSeconds(1))
+            .maxInterval(Duration.ofSeconds(5))
+            .timeout(Duration.ofMinutes(2))
+            .until(() -> {
+                try {
+                    return loadInstances(instanceIds).size() == instanceIds.size();
+                } catch (AmazonServiceException e) {
+                    logger.info("instances are not visible yet, error={}", e.getErrorCode());
+                    return false;
+                }
+            });
     }
 
     private void waitUntil(List<String> instanceIds, final InstanceState expectedState) throws InterruptedException {
-        while (true) {
-            Threads.sleepRoughly(Duration.ofSeconds(20));
-            List<Instance> instances = describeInstances(instanceIds);
-
-            for (Instance instance : instances) {
-                logger.info("instance status {} => {}", instance.getInstanceId(), instance.getState().getName());
-            }
-
-            boolean allOK = instances.stream().allMatch(instance -> expectedState.equalsTo(instance.getState()));
-
-            if (allOK) break;
-        }
+        new Waiter("instance-" + expectedState.name)
+            .initialInterval(Duration.ofSeconds(5))
+            .maxInterval(Duration.ofSeconds(20))
+            .timeout(Duration.ofMinutes(15))
+            .until(() -> {
+                Collection<Instance> instances = instanceBatcher.getAll(instanceIds).values();
+
+                for (Instance instance : instances) {
+                    logger.info("instance status {} => {}", instance.getInstanceId(), instance.getState().getName());
+                }
+
+                return instances.stream().allMatch(instance -> expectedState.equalsTo(instance.getState()));
+            });
     }
 }
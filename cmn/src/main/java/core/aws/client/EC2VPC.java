@@ -1,6 +1,7 @@
 package core.aws.client;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.ec2.AmazonEC2;
@@ -25,19 +26,23 @@ import com.amazonaws.services.ec2.model.DescribeVpcsResult;
 import com.amazonaws.services.ec2.model.DisassociateAddressRequest;
 import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.InternetGateway;
+import com.amazonaws.services.ec2.model.ModifySubnetAttributeRequest;
 import com.amazonaws.services.ec2.model.ModifyVpcAttributeRequest;
 import com.amazonaws.services.ec2.model.NatGateway;
 import com.amazonaws.services.ec2.model.ReleaseAddressRequest;
 import com.amazonaws.services.ec2.model.RouteTable;
 import com.amazonaws.services.ec2.model.Vpc;
 import core.aws.util.Runner;
-import core.aws.util.Threads;
+import core.aws.util.Waiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author neo
@@ -45,24 +50,28 @@ import java.util.List;
 public class EC2VPC {
     public final AmazonEC2 ec2;
     private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final DescribeCache<String, com.amazonaws.services.ec2.model.Subnet> subnetCache = new DescribeCache<String, com.amazonaws.services.ec2.model.Subnet>("subnets", Duration.ofMinutes(5))
+        .cacheable(subnet -> "available".equals(subnet.getState()));   // pending subnet is polled by create subnet task
 
-    public EC2VPC(AWSCredentialsProvider credentials, Regions region) {
-        ec2 = AmazonEC2ClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    public EC2VPC(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        ec2 = AmazonEC2ClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build();
     }
 
     public Vpc createVPC() throws InterruptedException {
         logger.info("create VPC");
         String vpcId = ec2.createVpc(new CreateVpcRequest().withCidrBlock("10.0.0.0/16")).getVpc().getVpcId();
 
-        while (true) {
-            Threads.sleepRoughly(Duration.ofSeconds(20));
-            DescribeVpcsResult result = ec2.describeVpcs(new DescribeVpcsRequest().withVpcIds(vpcId));
-            Vpc remoteVPC = result.getVpcs().get(0);
-            if ("available".equals(remoteVPC.getState())) {
-                enableVPCDNS(vpcId);
-                return remoteVPC;
-            }
-        }
+        Vpc remoteVPC = new Waiter("vpc-available")
+            .initialInterval(Duration.ofSeconds(1))
+            .maxInterval(Duration.ofSeconds(10))
+            .timeout(Duration.ofMinutes(5))
+            .get(() -> {
+                DescribeVpcsResult result = ec2.describeVpcs(new DescribeVpcsRequest().withVpcIds(vpcId));
+                Vpc vpc = result.getVpcs().get(0);
+                return "available".equals(vpc.getState()) ? vpc : null;
+            });
+        enableVPCDNS(vpcId);
+        return remoteVPC;
     }
 
     public com.amazonaws.services.ec2.model.Subnet createSubnet(CreateSubnetRequest request) {
@@ -71,7 +80,21 @@ public class EC2VPC {
     }
 
     public List<com.amazonaws.services.ec2.model.Subnet> describeSubnets(List<String> subnetIds) {
-        return ec2.describeSubnets(new DescribeSubnetsRequest().withSubnetIds(subnetIds)).getSubnets();
+        return new ArrayList<>(subnetCache.getAll(subnetIds, this::loadSubnets).values());
+    }
+
+    private Map<String, com.amazonaws.services.ec2.model.Subnet> loadSubnets(List<String> subnetIds) {
+        logger.info("describe subnets, subnetIds={}", subnetIds);
+        Map<String, com.amazonaws.services.ec2.model.Subnet> subnets = new LinkedHashMap<>();
+        ec2.describeSubnets(new DescribeSubnetsRequest().withSubnetIds(subnetIds)).getSubnets()
+           .forEach(subnet -> subnets.put(subnet.getSubnetId(), subnet));
+        return subnets;
+    }
+
+    public void modifySubnetAttribute(ModifySubnetAttributeRequest request) {
+        logger.info("modify subnet attribute, request={}", request);
+        ec2.modifySubnetAttribute(request);
+        subnetCache.invalidate(List.of(request.getSubnetId()));
     }
 
     public Vpc describeVPC(String vpcId) {
@@ -138,36 +161,34 @@ public class EC2VPC {
             .withAllocationId(address.getAllocationId());
         String gatewayId = ec2.createNatGateway(request).getNatGateway().getNatGatewayId();
 
-        NatGateway gateway;
-        while (true) {
-            Threads.sleepRoughly(Duration.ofSeconds(30));
-            gateway = describeNATGateway(gatewayId);
-            String state = gateway.getState();
-            if ("pending".equals(state)) continue;
-            if ("available".equals(state)) {
-                break;
-            } else {
+        return new Waiter("nat-gateway-available")
+            .initialInterval(Duration.ofSeconds(10))
+            .maxInterval(Duration.ofSeconds(30))
+            .timeout(Duration.ofMinutes(15))
+            .get(() -> {
+                NatGateway gateway = describeNATGateway(gatewayId);
+                String state = gateway.getState();
+                if ("pending".equals(state)) return null;
+                if ("available".equals(state)) return gateway;
                 throw new Error("failed to create nat gateway, gatewayId=" + gatewayId + ", state=" + state);
-            }
-        }
-        return gateway;
+            });
     }
 
     public void deleteNATGateway(String gatewayId) {
         logger.info("delete nat gateway, natGatewayId={}", gatewayId);
         AWS.getVpc().ec2.deleteNatGateway(new DeleteNatGatewayRequest().withNatGatewayId(gatewayId));
 
-        while (true) {
-            Threads.sleepRoughly(Duration.ofSeconds(30));
-            NatGateway gateway = AWS.getVpc().describeNATGateway(gatewayId);
-            String state = gateway.getState();
-            if ("deleting".equals(state)) continue;
-            if ("deleted".equals(state)) {
-                break;
-            } else {
+        new Waiter("nat-gateway-deleted")
+            .initialInterval(Duration.ofSeconds(10))
+            .maxInterval(Duration.ofSeconds(30))
+            .timeout(Duration.ofMinutes(15))
+            .until(() -> {
+                NatGateway gateway = AWS.getVpc().describeNATGateway(gatewayId);
+                String state = gateway.getState();
+                if ("deleting".equals(state)) return false;
+                if ("deleted".equals(state)) return true;
                 throw new Error("failed to delete nat gateway, gatewayId=" + gatewayId + ", state=" + state);
-            }
-        }
+            });
     }
 
     private NatGateway describeNATGateway(String gatewayId) {
@@ -1,6 +1,7 @@
 package core.aws.client;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.elasticloadbalancing.AmazonElasticLoadBalancing;
@@ -13,29 +14,42 @@ import com.amazonaws.services.elasticloadbalancing.model.DescribeInstanceHealthR
 import com.amazonaws.services.elasticloadbalancing.model.DescribeInstanceHealthResult;
 import com.amazonaws.services.elasticloadbalancing.model.DescribeLoadBalancersRequest;
 import com.amazonaws.services.elasticloadbalancing.model.DescribeLoadBalancersResult;
+import com.amazonaws.services.elasticloadbalancing.model.DescribeTagsRequest;
 import com.amazonaws.services.elasticloadbalancing.model.Instance;
 import com.amazonaws.services.elasticloadbalancing.model.InstanceState;
 import com.amazonaws.services.elasticloadbalancing.model.LoadBalancerDescription;
 import com.amazonaws.services.elasticloadbalancing.model.ModifyLoadBalancerAttributesRequest;
 import com.amazonaws.services.elasticloadbalancing.model.RegisterInstancesWithLoadBalancerRequest;
+import com.amazonaws.services.elasticloadbalancing.model.Tag;
 import core.aws.util.Runner;
-import core.aws.util.Threads;
+import core.aws.util.Waiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
  * @author neo
  */
 public class ElasticLoadBalancing {
+    private static final int MAX_DESCRIBE_TAGS_NAMES = 20;
     public final AmazonElasticLoadBalancing elb;
     private final Logger logger = LoggerFactory.getLogger(ElasticLoadBalancing.class);
+    // key is elbName:instanceId, elb name only contains alphanumeric and '-'
+    private final Batcher<String, InstanceState> instanceHealthBatcher = new Batcher<>("describe-instance-health", Duration.ofSeconds(1), 100, this::loadInstanceHealth);
 
-    ElasticLoadBalancing(AWSCredentialsProvider credentials, Regions region) {
-        elb = AmazonElasticLoadBalancingClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    ElasticLoadBalancing(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        this(AmazonElasticLoadBalancingClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build());
+    }
+
+    ElasticLoadBalancing(AmazonElasticLoadBalancing elb) {
+        this.elb = elb;
     }
 
     public LoadBalancerDescription createELB(final CreateLoadBalancerRequest request) throws Exception {
@@ -70,6 +84,15 @@ public class ElasticLoadBalancing {
         return result.getLoadBalancerDescriptions();
     }
 
+    // key is elb name, batched with max names per call allowed by aws
+    public Map<String, List<Tag>> describeTags(List<String> elbNames) {
+        logger.info("describe elb tags, elbNames={}", elbNames);
+        Map<String, List<Tag>> tags = new HashMap<>();
+        Batches.call(Batches.partition(elbNames, MAX_DESCRIBE_TAGS_NAMES), 5, batch -> elb.describeTags(new DescribeTagsRequest().withLoadBalancerNames(batch)).getTagDescriptions())
+            .forEach(descriptions -> descriptions.forEach(description -> tags.put(description.getLoadBalancerName(), description.getTags())));
+        return tags;
+    }
+
     public void deleteELB(String elbName) {
         logger.info("delete elb, elbName={}", elbName);
         elb.deleteLoadBalancer(new DeleteLoadBalancerRequest(elbName));
@@ -82,17 +105,24 @@ public class ElasticLoadBalancing {
             .withSecurityGroups(sgId));
     }
 
+    // batched with concurrent callers on same elb, for polling tasks, unknown instance id fails with aws error
     public List<InstanceState> describeInstanceHealth(String elbName, List<String> instanceIds) {
-        logger.info("describe elb instance health, instanceIds={}", instanceIds);
-
-        List<Instance> instances = instanceIds.stream()
-            .map(Instance::new)
-            .collect(Collectors.toList());
-
-        DescribeInstanceHealthResult result = elb.describeInstanceHealth(new DescribeInstanceHealthRequest(elbName)
-            .withInstances(instances));
+        Map<String, InstanceState> states = instanceHealthBatcher.getAll(instanceIds.stream().map(instanceId -> elbName + ":" + instanceId).collect(Collectors.toList()));
+        return instanceIds.stream().map(instanceId -> states.get(elbName + ":" + instanceId)).filter(Objects::nonNull).collect(Collectors.toList());
+    }
 
-        return result.getInstanceStates();
+    // describeInstanceHealth only accepts one elb, describe union of requested instances per elb
+    private Map<String, InstanceState> loadInstanceHealth(List<String> keys) {
+        Map<String, List<String>> instanceIds = keys.stream().collect(Collectors.groupingBy(key -> key.substring(0, key.indexOf(':')), LinkedHashMap::new,
+            Collectors.mapping(key -> key.substring(key.indexOf(':') + 1), Collectors.toList())));
+        Map<String, InstanceState> states = new HashMap<>();
+        instanceIds.forEach((elbName, ids) -> {
+            logger.info("describe elb instance health, elbName={}, instanceIds={}", elbName, ids);
+            List<Instance> instances = ids.stream().map(Instance::new).collect(Collectors.toList());
+            DescribeInstanceHealthResult result = elb.describeInstanceHealth(new DescribeInstanceHealthRequest(elbName).withInstances(instances));
+            result.getInstanceStates().forEach(state -> states.put(elbName + ":" + state.getInstanceId(), state));
+        });
+        return states;
     }
 
     public void detachInstances(String elbName, List<String> instanceIds) {
@@ -116,26 +146,24 @@ public class ElasticLoadBalancing {
             .withLoadBalancerName(elbName)
             .withInstances(instances));
 
-        int attempts = 0;
-        while (true) {
-            attempts++;
-            Threads.sleepRoughly(Duration.ofSeconds(15));
-
-            List<InstanceState> states = describeInstanceHealth(elbName, instanceIds);
-
-            for (InstanceState state : states) {
-                logger.info("instance elb state {} => {}", state.getInstanceId(), state.getState());
-            }
-
-            boolean allAttached = states.stream().allMatch(state -> state.getState().contains(expectedState));
-            if (allAttached) {
-                logger.info("all instances are attached to elb");
-                break;
-            } else if (attempts >= 30) {
-                throw new Error("failed to wait all instances to be attached to elb, please check aws console for more details");
-            } else {
-                logger.info("continue to wait, not all new instances are attached");
-            }
-        }
+        new Waiter("elb-instances-attached")
+            .initialInterval(Duration.ofSeconds(5))
+            .maxInterval(Duration.ofSeconds(15))
+            .timeout(Duration.ofSeconds(450))
+            .until(() -> {
+                List<InstanceState> states = describeInstanceHealth(elbName, instanceIds);
+
+                for (InstanceState state : states) {
+                    logger.info("instance elb state {} => {}", state.getInstanceId(), state.getState());
+                }
+
+                boolean allAttached = states.stream().allMatch(state -> state.getState().contains(expectedState));
+                if (allAttached) {
+                    logger.info("all instances are attached to elb");
+                } else {
+                    logger.info("continue to wait, not all new instances are attached");
+                }
+                return allAttached;
+            });
     }
 }
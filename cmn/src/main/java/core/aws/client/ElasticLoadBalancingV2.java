@@ -1,6 +1,7 @@
 package core.aws.client;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.elasticloadbalancingv2.AmazonElasticLoadBalancing;
@@ -11,11 +12,13 @@ import com.amazonaws.services.elasticloadbalancingv2.model.DeleteLoadBalancerReq
 import com.amazonaws.services.elasticloadbalancingv2.model.DescribeListenersRequest;
 import com.amazonaws.services.elasticloadbalancingv2.model.DescribeLoadBalancersRequest;
 import com.amazonaws.services.elasticloadbalancingv2.model.DescribeLoadBalancersResult;
+import com.amazonaws.services.elasticloadbalancingv2.model.DescribeTagsRequest;
 import com.amazonaws.services.elasticloadbalancingv2.model.DescribeTargetGroupsRequest;
 import com.amazonaws.services.elasticloadbalancingv2.model.DescribeTargetGroupsResult;
 import com.amazonaws.services.elasticloadbalancingv2.model.Listener;
 import com.amazonaws.services.elasticloadbalancingv2.model.LoadBalancer;
 import com.amazonaws.services.elasticloadbalancingv2.model.SetSecurityGroupsRequest;
+import com.amazonaws.services.elasticloadbalancingv2.model.Tag;
 import com.amazonaws.services.elasticloadbalancingv2.model.TargetGroup;
 import core.aws.util.Lists;
 import core.aws.util.Runner;
@@ -23,18 +26,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author gabo
  */
 public class ElasticLoadBalancingV2 {
     private static final int PAGE_SIZE = 50;
+    private static final int MAX_DESCRIBE_TAGS_ARNS = 20;
     private final Logger logger = LoggerFactory.getLogger(ElasticLoadBalancingV2.class);
     public final AmazonElasticLoadBalancing elb;
 
-    ElasticLoadBalancingV2(AWSCredentialsProvider credentials, Regions region) {
-        elb = AmazonElasticLoadBalancingClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    ElasticLoadBalancingV2(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        elb = AmazonElasticLoadBalancingClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build();
     }
 
     public LoadBalancer createELB(final CreateLoadBalancerRequest request) throws Exception {
@@ -76,6 +82,15 @@ public class ElasticLoadBalancingV2 {
         }
     }
 
+    // key is elb arn, batched with max arns per call allowed by aws
+    public Map<String, List<Tag>> describeTags(List<String> elbARNs) {
+        logger.info("describe elb tags - V2, elbARNs={}", elbARNs);
+        Map<String, List<Tag>> tags = new HashMap<>();
+        Batches.call(Batches.partition(elbARNs, MAX_DESCRIBE_TAGS_ARNS), 5, batch -> elb.describeTags(new DescribeTagsRequest().withResourceArns(batch)).getTagDescriptions())
+            .forEach(descriptions -> descriptions.forEach(description -> tags.put(description.getResourceArn(), description.getTags())));
+        return tags;
+    }
+
     public List<TargetGroup> listTGs() {
         logger.info("list all target groups");
         List<TargetGroup> result = Lists.newArrayList();
@@ -1,6 +1,7 @@
 package core.aws.client;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.policy.Policy;
 import com.amazonaws.regions.Region;
@@ -32,7 +33,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -43,8 +46,12 @@ public class IAM {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final Region region;
 
-    public IAM(AWSCredentialsProvider credentials, Regions region) {
-        iam = AmazonIdentityManagementClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    public IAM(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        this(AmazonIdentityManagementClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build(), region);
+    }
+
+    IAM(AmazonIdentityManagement iam, Regions region) {
+        this.iam = iam;
         this.region = Region.getRegion(region);
     }
 
@@ -117,6 +124,14 @@ public class IAM {
         return iam.getServerCertificate(new GetServerCertificateRequest(serverCertName)).getServerCertificate();
     }
 
+    // key is cert name, iam has no batch get, so fetch concurrently
+    public Map<String, ServerCertificate> getServerCerts(List<String> serverCertNames) {
+        Map<String, ServerCertificate> certs = new HashMap<>();
+        Batches.call(Batches.partition(serverCertNames, 1), 5, batch -> getServerCert(batch.get(0)))
+               .forEach(cert -> certs.put(cert.getServerCertificateMetadata().getServerCertificateName(), cert));
+        return certs;
+    }
+
     public Optional<Policy> findRolePolicy(String roleName, String policyName) {
         logger.info("find role policy, roleName={}, policyName={}", roleName, policyName);
         try {
@@ -0,0 +1,92 @@
+package core.aws.client;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.handlers.HandlerBeforeAttemptContext;
+import com.amazonaws.handlers.RequestHandler2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token bucket per aws service applied to every attempt including sdk retries,
+ * rate is halved on throttling and recovers slowly on success (AIMD), to stay close to the sustainable rate of account
+ *
+ * @author neo
+ */
+public final class RateLimiter extends RequestHandler2 {
+    private static final double INITIAL_RATE = 20;      // requests per second
+    private static final double MIN_RATE = 1;
+    private static final double MAX_RATE = 100;
+    private static final double RATE_INCREASE = 0.05;   // per successful attempt, at 20 rps it recovers 1 rps per second
+    private static final long DECREASE_INTERVAL = TimeUnit.SECONDS.toNanos(1);  // concurrent throttled attempts within interval only decrease once
+
+    private final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public void beforeAttempt(HandlerBeforeAttemptContext context) {
+        long waitTime = bucket(context.getRequest().getServiceName()).acquire();
+        if (waitTime <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException("rate limiter is interrupted", e);
+        }
+    }
+
+    @Override
+    public void afterAttempt(HandlerAfterAttemptContext context) {
+        Bucket bucket = bucket(context.getRequest().getServiceName());
+        if (APIMetrics.throttled(context.getException())) {
+            double rate = bucket.decrease();
+            if (rate > 0) logger.warn("aws throttled, decrease request rate, service={}, rate={}", bucket.service, String.format("%.1f", rate));
+        } else if (context.getException() == null) {
+            bucket.increase();
+        }
+    }
+
+    private Bucket bucket(String service) {
+        return buckets.computeIfAbsent(service, Bucket::new);
+    }
+
+    static final class Bucket {
+        final String service;
+        double rate = INITIAL_RATE;
+        double tokens = INITIAL_RATE;     // allow burst of one second, negative means reserved by waiting attempts
+        long lastRefillTime = System.nanoTime();
+        long lastDecreaseTime;
+
+        Bucket(String service) {
+            this.service = service;
+        }
+
+        // reserve one token, return nanos to wait until it is available
+        synchronized long acquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(rate, tokens + (now - lastRefillTime) * rate / 1_000_000_000);
+            lastRefillTime = now;
+            tokens -= 1;
+            if (tokens >= 0) return 0;
+            return (long) (-tokens / rate * 1_000_000_000);
+        }
+
+        // return new rate, or 0 if decreased recently
+        synchronized double decrease() {
+            long now = System.nanoTime();
+            if (lastDecreaseTime != 0 && now - lastDecreaseTime < DECREASE_INTERVAL) return 0;
+            lastDecreaseTime = now;
+            rate = Math.max(MIN_RATE, rate / 2);
+            tokens = Math.min(tokens, 0);      // stop current burst
+            return rate;
+        }
+
+        synchronized void increase() {
+            rate = Math.min(MAX_RATE, rate + RATE_INCREASE);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package core.aws.client;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
@@ -40,8 +41,8 @@ public class S3 {
     public final AmazonS3 s3;
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    S3(AWSCredentialsProvider credentials, Regions region) {
-        s3 = AmazonS3ClientBuilder.standard().withRegion(region).withCredentials(credentials).build();
+    S3(AWSCredentialsProvider credentials, Regions region, ClientConfiguration config) {
+        s3 = AmazonS3ClientBuilder.standard().withRegion(region).withCredentials(credentials).withClientConfiguration(config).withRequestHandlers(AWS.API_METRICS, AWS.RATE_LIMITER).build();
     }
 
     public void createFolder(String bucket, String folder) {
@@ -1,12 +1,16 @@
 package core.aws.env;
 
+import core.aws.client.AWS;
 import core.aws.local.ResourcesLoader;
 import core.aws.plan.TaskPlanner;
+import core.aws.remote.LoadScope;
 import core.aws.remote.RemoteResourceLoader;
 import core.aws.resource.Resources;
 import core.aws.task.TaskBuilder;
 import core.aws.task.linux.SSHRunner;
 import core.aws.util.Asserts;
+import core.aws.util.SSH;
+import core.aws.util.Waiter;
 import core.aws.workflow.Tasks;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +19,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -26,6 +36,7 @@ public class Cloud {
     private final ParamValidator validator = new ParamValidator();
     private final ResourcesLoader resourcesLoader = new ResourcesLoader();
     private final RemoteResourceLoader remoteResourceLoader = new RemoteResourceLoader();
+    private final Set<Goal> scopedGoals = EnumSet.of(Goal.BAKE, Goal.DEPLOY, Goal.START, Goal.STOP, Goal.EXEC, Goal.UPLOAD, Goal.PROVISION);
     private final Context context;
 
     public Cloud(Context context) {
@@ -46,20 +57,45 @@ public class Cloud {
         if (goal == Goal.SSH) {
             ssh();
         } else {
-            remoteResourceLoader.load(context.env, resources);
-            resources.validate();
+            try {
+                remoteResourceLoader.load(context.env, resources, loadScope(goal, resources));
+                resources.validate();
 
-            Tasks tasks = new TaskBuilder(goal, resources, context).build();
-            if (tasks.size() > 0) {
-                new TaskPlanner().plan(tasks);
-                tasks.execute(context);
-                context.printOutputs();
-            } else {
-                logger.info("there is no task needs to run");
+                Tasks tasks = new TaskBuilder(goal, resources, context).build();
+                if (tasks.size() > 0) {
+                    new TaskPlanner().plan(tasks);
+                    tasks.execute(context);
+                    context.printOutputs();
+                } else {
+                    logger.info("there is no task needs to run");
+                }
+            } finally {
+                printAPIMetrics();      // also when workflow failed, which is when metrics are needed most
+                SSH.closeSessions();
             }
         }
     }
 
+    private void printAPIMetrics() {
+        AWS.getApiMetrics().printSummary();
+        Waiter.printSummary();
+        if ("true".equals(context.param(Param.API_METRICS))) {
+            Path path = context.env.runtimeDir.resolve("api-metrics-" + context.goal.name().toLowerCase(Locale.US) + LocalDateTime.now().format(DateTimeFormatter.ofPattern("-yyyyMMdd-HHmmss")) + ".json");
+            try {
+                AWS.getApiMetrics().writeJSON(path);
+            } catch (IOException e) {
+                logger.warn("failed to write api metrics, path={}", path, e);   // not to hide error of workflow
+            }
+        }
+    }
+
+    // goals on specific resources only need to describe the resources and their dependencies
+    private LoadScope loadScope(Goal goal, Resources resources) {
+        List<String> resourceIds = context.params(Param.RESOURCE_ID);
+        if (resourceIds == null || !scopedGoals.contains(goal)) return LoadScope.all();
+        return LoadScope.of(resources, resourceIds);
+    }
+
     private void ssh() throws IOException, InterruptedException {
         // ssh is blocking task
         String resourceId = context.requiredParam(Param.RESOURCE_ID);
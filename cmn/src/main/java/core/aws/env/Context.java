@@ -21,6 +21,7 @@ public class Context {
     private final Logger messageLogger = LoggerFactory.getLogger("message");
     private final Map<String, List<String>> newOutputs = new TreeMap<>();
     private final ReentrantLock lock = new ReentrantLock();
+    private final ThreadLocal<Map<String, List<String>>> taskOutputs = new ThreadLocal<>();    // outputs of current task, to be written into workflow journal
     public Goal goal;
     public Environment env;
 
@@ -30,6 +31,8 @@ public class Context {
                 newOutputs.computeIfAbsent(key, k -> new ArrayList<>())
                     .add(String.valueOf(value));
             }
+            Map<String, List<String>> outputs = taskOutputs.get();
+            if (outputs != null) outputs.computeIfAbsent(key, k -> new ArrayList<>()).add(String.valueOf(value));
         } catch (InterruptedException e) {
             throw new RuntimeException("could not acquire thread lock", e);
         } finally {
@@ -37,6 +40,14 @@ public class Context {
         }
     }
 
+    public void trackTaskOutputs() {
+        taskOutputs.set(new TreeMap<>());
+    }
+
+    public Map<String, List<String>> taskOutputs() {
+        return taskOutputs.get();
+    }
+
     public List<String> params(Param key) {
         return params.get(key);
     }
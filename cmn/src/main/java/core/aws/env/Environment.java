@@ -2,12 +2,14 @@ package core.aws.env;
 
 import com.amazonaws.regions.Regions;
 import core.aws.util.Asserts;
+import core.aws.workflow.FailFast;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,15 +17,22 @@ import java.util.List;
  * @author neo
  */
 public class Environment {
+    public static final int UNBOUNDED_CONCURRENCY = 0;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
     public final Path envDir;
+    public final Path runtimeDir;   // workflow journal and traces
     public Regions region = Regions.US_EAST_1;
     public String name;
     public final List<Path> ansibleRolePaths = new ArrayList<>();
     public String bakeSubnetId;
+    public int workflowConcurrency = 20;
+    public FailFast failFast = FailFast.OFF;
+    public final AWSClient awsClient = new AWSClient();
 
     public Environment(Path envDir) throws IOException {
         this.envDir = envDir;
+        runtimeDir = envDir.resolve(".cmn");
 
         name = envDir.getFileName().toString();
 
@@ -42,8 +51,31 @@ public class Environment {
         this.name = name;
     }
 
+    public void workflowConcurrency(int concurrency) {
+        logger.info("workflow concurrency => {}", concurrency == UNBOUNDED_CONCURRENCY ? "unbounded" : concurrency);
+        workflowConcurrency = concurrency;
+    }
+
+    public void failFast(FailFast failFast) {
+        logger.info("workflow fail fast => {}", failFast);
+        this.failFast = failFast;
+    }
+
+    public void awsMaxConnections(int maxConnections) {
+        logger.info("aws max connections => {}", maxConnections);
+        awsClient.maxConnections = maxConnections;
+    }
+
     public void customAnsiblePath(Path customAnsiblePath) {
         logger.info("custom ansible path => {}", customAnsiblePath);
         ansibleRolePaths.add(customAnsiblePath);
     }
+
+    public static class AWSClient {
+        public Integer maxConnections;      // null means derived from workflow concurrency
+        public boolean tcpKeepAlive = true;
+        public Duration socketTimeout = Duration.ofSeconds(50);
+        public Duration requestTimeout;     // null means no limit, sdk default
+        public boolean gzip;
+    }
 }
@@ -9,11 +9,17 @@ public enum Param {
     SSH_TUNNEL_RESOURCE_ID("tunnel"),
     EXECUTE_COMMAND("cmd"),
     EXECUTE_SCRIPT("script"),
+    EXECUTE_PARALLEL("parallel"),
+    EXECUTE_BATCH("batch"),
     PACKAGE_DIR("package-dir"),
+    UPLOAD_MODE("upload-mode"),
+    UPLOAD_DELTA("delta"),
     INSTANCE_INDEX("i"),
     PROVISION_PLAYBOOK("playbook"),
     RESUME_BAKE("resume-bake"),
-    DRY_RUN("dry-run");
+    RESUME("resume"),
+    DRY_RUN("dry-run"),
+    API_METRICS("api-metrics");
 
     public static Param parse(String key) {
         Param[] params = Param.values();
@@ -12,19 +12,19 @@ import java.util.Map;
 public class ParamValidator {
     public void validate(Goal goal, Map<Param, List<String>> params) {
         if (goal == Goal.SYNC || goal == Goal.DEL) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.DRY_RUN), null);
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.DRY_RUN, Param.RESUME, Param.API_METRICS), null);
         } else if (goal == Goal.DESC) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH), null);
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.API_METRICS), null);
         } else if (goal == Goal.BAKE) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.RESUME_BAKE), Lists.newArrayList(Param.RESOURCE_ID));
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.RESUME_BAKE, Param.RESUME, Param.UPLOAD_MODE, Param.API_METRICS), Lists.newArrayList(Param.RESOURCE_ID));
         } else if (goal == Goal.DEPLOY || goal == Goal.STOP || goal == Goal.START) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID), null);
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.RESUME, Param.API_METRICS), null);
         } else if (goal == Goal.EXEC) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.INSTANCE_INDEX, Param.EXECUTE_COMMAND, Param.EXECUTE_SCRIPT), Lists.newArrayList(Param.RESOURCE_ID, Param.EXECUTE_COMMAND));
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.INSTANCE_INDEX, Param.EXECUTE_COMMAND, Param.EXECUTE_SCRIPT, Param.EXECUTE_PARALLEL, Param.EXECUTE_BATCH, Param.API_METRICS), Lists.newArrayList(Param.RESOURCE_ID, Param.EXECUTE_COMMAND));
         } else if (goal == Goal.UPLOAD) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.PACKAGE_DIR, Param.INSTANCE_INDEX), Lists.newArrayList(Param.PACKAGE_DIR, Param.RESOURCE_ID));
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.PACKAGE_DIR, Param.UPLOAD_MODE, Param.UPLOAD_DELTA, Param.INSTANCE_INDEX, Param.API_METRICS), Lists.newArrayList(Param.PACKAGE_DIR, Param.RESOURCE_ID));
         } else if (goal == Goal.PROVISION) {
-            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.PACKAGE_DIR, Param.INSTANCE_INDEX, Param.PROVISION_PLAYBOOK), Lists.newArrayList(Param.RESOURCE_ID));
+            validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.PACKAGE_DIR, Param.UPLOAD_MODE, Param.INSTANCE_INDEX, Param.PROVISION_PLAYBOOK, Param.API_METRICS), Lists.newArrayList(Param.RESOURCE_ID));
         } else if (goal == Goal.SSH) {
             validateParams(params, Lists.newArrayList(Param.ENV_PATH, Param.RESOURCE_ID, Param.INSTANCE_INDEX, Param.SSH_TUNNEL_RESOURCE_ID), Lists.newArrayList(Param.RESOURCE_ID));
         } else {
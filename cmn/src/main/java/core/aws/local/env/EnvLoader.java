@@ -2,6 +2,14 @@ package core.aws.local.env;
 
 import core.aws.env.Environment;
 import core.aws.local.ResourceNode;
+import core.aws.util.Asserts;
+import core.aws.workflow.FailFast;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
@@ -17,6 +25,51 @@ public class EnvLoader {
 
         node.getString("bake-subnet-id").ifPresent(bakeSubnetId -> env.bakeSubnetId = bakeSubnetId);
 
+        Object concurrency = node.field("workflow-concurrency");
+        if ("unbounded".equals(concurrency)) {
+            env.workflowConcurrency(Environment.UNBOUNDED_CONCURRENCY);    // run all ready tasks at once, e.g. env with many instances/asgs waiting on aws
+        } else {
+            node.getInt("workflow-concurrency").ifPresent(value -> {
+                Asserts.isTrue(value > 0, "workflow-concurrency must be positive or unbounded, value={}", value);
+                env.workflowConcurrency(value);
+            });
+        }
+
+        Object failFast = node.field("fail-fast");
+        if (failFast instanceof Boolean) {
+            env.failFast((Boolean) failFast ? FailFast.ALL : FailFast.OFF);
+        } else {
+            node.getString("fail-fast").ifPresent(value -> env.failFast(failFast(value)));   // subgraph, only cancel tasks connected to failed one
+        }
+
+        Map<String, Object> awsClient = node.mapField("aws-client");
+        if (awsClient != null) loadAWSClient(new ResourceNode("aws-client", node.id, awsClient, node.yml, node.path), env);
+
         //TODO: better way to validate unused field
     }
+
+    private void loadAWSClient(ResourceNode node, Environment env) {
+        node.getInt("max-connections").ifPresent(value -> {
+            Asserts.isTrue(value > 0, "max-connections must be positive, value={}", value);
+            env.awsMaxConnections(value);
+        });
+        Boolean tcpKeepAlive = bool(node, "tcp-keep-alive");
+        if (tcpKeepAlive != null) env.awsClient.tcpKeepAlive = tcpKeepAlive;
+        node.getInt("socket-timeout-seconds").ifPresent(value -> env.awsClient.socketTimeout = Duration.ofSeconds(value));
+        node.getInt("request-timeout-seconds").ifPresent(value -> env.awsClient.requestTimeout = Duration.ofSeconds(value));
+        Boolean gzip = bool(node, "gzip");
+        if (gzip != null) env.awsClient.gzip = gzip;
+    }
+
+    private FailFast failFast(String value) {
+        FailFast failFast = Arrays.stream(FailFast.values()).filter(mode -> mode.name().equalsIgnoreCase(value)).findFirst().orElse(null);
+        return Asserts.notNull(failFast, "fail-fast must be one of true, false, {}, value={}",
+            Arrays.stream(FailFast.values()).map(mode -> mode.name().toLowerCase(Locale.US)).collect(Collectors.joining(", ")), value);
+    }
+
+    private Boolean bool(ResourceNode node, String field) {
+        Object value = node.field(field);
+        Asserts.isTrue(value == null || value instanceof Boolean, "value is not boolean, field={}, value={}", field, value);
+        return (Boolean) value;
+    }
 }
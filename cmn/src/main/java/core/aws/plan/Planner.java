@@ -7,9 +7,7 @@ import core.aws.workflow.Tasks;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
-import static core.aws.util.StreamHelper.instanceOf;
 import static core.aws.util.StreamHelper.onlyOne;
 
 /**
@@ -24,15 +22,15 @@ public abstract class Planner {
 
     public <T extends Resource, U extends Task> Optional<U> find(final Class<U> taskClass, final T resource) {
         Asserts.notNull(resource, "resource can not be null");
-        return tasks.stream().flatMap(instanceOf(taskClass)).filter(task -> task.resource == resource).reduce(onlyOne());
+        return tasks.all(taskClass, resource).stream().reduce(onlyOne());
     }
 
     public <U extends Task> Optional<U> find(Class<U> taskClass) {
-        return tasks.stream().flatMap(instanceOf(taskClass)).reduce(onlyOne());
+        return tasks.all(taskClass).stream().reduce(onlyOne());
     }
 
     public <T extends Task> List<T> all(Class<T> taskClass) {
-        return tasks.stream().flatMap(instanceOf(taskClass)).collect(Collectors.toList());
+        return tasks.all(taskClass);
     }
 
     public abstract void plan();
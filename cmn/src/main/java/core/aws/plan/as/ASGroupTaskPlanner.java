@@ -20,7 +20,7 @@ import core.aws.workflow.Tasks;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
@@ -42,8 +42,11 @@ public class ASGroupTaskPlanner extends Planner {
     private void removeUnnecessaryDeletePolicyTasks() {
         Set<DeletePolicyTask> removedTasks = new HashSet<>();
 
+        Set<String> deletedASGroupNames = all(DeleteASGroupTask.class).stream()
+            .map(task -> task.resource.remoteASGroup.getAutoScalingGroupName())
+            .collect(Collectors.toSet());
         for (DeletePolicyTask deletePolicyTask : all(DeletePolicyTask.class)) {
-            if (all(DeleteASGroupTask.class).stream().anyMatch(agNameEquals(deletePolicyTask))) {
+            if (deletedASGroupNames.contains(deletePolicyTask.resource.remotePolicy.getAutoScalingGroupName())) {
                 removedTasks.add(deletePolicyTask); // delete auto scaling group will remove all policies automatically
             }
         }
@@ -51,11 +54,6 @@ public class ASGroupTaskPlanner extends Planner {
         tasks.removeAll(removedTasks);
     }
 
-    private Predicate<DeleteASGroupTask> agNameEquals(DeletePolicyTask deletePolicyTask) {
-        return asGroupTask -> deletePolicyTask.resource.remotePolicy.getAutoScalingGroupName()
-            .equals(asGroupTask.resource.remoteASGroup.getAutoScalingGroupName());
-    }
-
     private void linkDeleteTasks() {
         for (DeleteASGroupTask asGroupTask : all(DeleteASGroupTask.class)) {
             ASGroup asGroup = asGroupTask.resource;
@@ -13,6 +13,9 @@ import core.aws.task.vpc.CreateSubnetTask;
 import core.aws.task.vpc.DeleteSubnetTask;
 import core.aws.workflow.Tasks;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author neo
  */
@@ -28,16 +31,23 @@ public class InstanceTaskPlanner extends Planner {
     }
 
     private void linkDeleteTasks() {
+        Map<String, DeleteSGTask> deleteSGTasks = new HashMap<>();
+        for (DeleteSGTask task : all(DeleteSGTask.class)) {
+            deleteSGTasks.putIfAbsent(task.resource.remoteSecurityGroup.getGroupId(), task);
+        }
+        Map<String, DeleteSubnetTask> deleteSubnetTasks = new HashMap<>();
+        for (DeleteSubnetTask task : all(DeleteSubnetTask.class)) {
+            task.resource.remoteSubnets.forEach(subnet -> deleteSubnetTasks.putIfAbsent(subnet.getSubnetId(), task));
+        }
+
         for (final DeleteInstanceTask instanceTask : all(DeleteInstanceTask.class)) {
             String securityGroupId = instanceTask.deletedInstances.get(0).getSecurityGroups().get(0).getGroupId();
-            all(DeleteSGTask.class).stream()
-                .filter(task -> securityGroupId.equals(task.resource.remoteSecurityGroup.getGroupId()))
-                .findAny().ifPresent(task -> task.dependsOn(instanceTask));
+            DeleteSGTask sgTask = deleteSGTasks.get(securityGroupId);
+            if (sgTask != null) sgTask.dependsOn(instanceTask);
 
             String subnetId = instanceTask.deletedInstances.get(0).getSubnetId();
-            all(DeleteSubnetTask.class).stream()
-                .filter(task -> task.resource.remoteSubnets.stream().anyMatch(subnet -> subnet.getSubnetId().equals(subnetId)))
-                .findAny().ifPresent(task -> task.dependsOn(instanceTask));
+            DeleteSubnetTask subnetTask = deleteSubnetTasks.get(subnetId);
+            if (subnetTask != null) subnetTask.dependsOn(instanceTask);
         }
     }
 
@@ -14,7 +14,9 @@ import core.aws.util.StreamHelper;
 import core.aws.workflow.Task;
 import core.aws.workflow.Tasks;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -69,8 +71,12 @@ public class SGTaskPlanner extends Planner {
     }
 
     private void linkDeleteTasks() {
+        Map<String, DeleteSGTask> deleteSGTasks = new HashMap<>();
+        for (DeleteSGTask task : all(DeleteSGTask.class)) {
+            deleteSGTasks.putIfAbsent(task.resource.remoteSecurityGroup.getGroupId(), task);
+        }
         all(DeleteSGRuleTask.class)
-            .forEach(this::linkDeleteRuleTask);
+            .forEach(ruleTask -> linkDeleteRuleTask(ruleTask, deleteSGTasks));
 
         for (DeleteSGTask sgTask : all(DeleteSGTask.class)) {
             if (sgTask.resource.remoteSecurityGroup.getVpcId() != null) {
@@ -79,14 +85,11 @@ public class SGTaskPlanner extends Planner {
         }
     }
 
-    private void linkDeleteRuleTask(DeleteSGRuleTask ruleTask) {
+    private void linkDeleteRuleTask(DeleteSGRuleTask ruleTask, Map<String, DeleteSGTask> deleteSGTasks) {
         for (IpPermission rule : ruleTask.deletedIngressRules) {
             for (UserIdGroupPair userIdGroup : rule.getUserIdGroupPairs()) {
-                final String sourceSGId = userIdGroup.getGroupId();
-
-                all(DeleteSGTask.class).stream()
-                    .filter(task -> sourceSGId.equals(task.resource.remoteSecurityGroup.getGroupId()))
-                    .findAny().ifPresent(task -> task.dependsOn(ruleTask));
+                DeleteSGTask sourceSGTask = deleteSGTasks.get(userIdGroup.getGroupId());
+                if (sourceSGTask != null) sourceSGTask.dependsOn(ruleTask);
             }
         }
     }
@@ -19,7 +19,7 @@ import java.util.Map;
  * @author neo
  */
 public class EnvTag {
-    private static final Map<String, Class<? extends Resource>> RESOURCE_TYPES = Maps.newHashMap();
+    static final Map<String, Class<? extends Resource>> RESOURCE_TYPES = Maps.newHashMap();
 
     static {
         RESOURCE_TYPES.put("instance", Instance.class);
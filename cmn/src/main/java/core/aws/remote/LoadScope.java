@@ -0,0 +1,92 @@
+package core.aws.remote;
+
+import core.aws.resource.Resource;
+import core.aws.resource.Resources;
+import core.aws.resource.as.ASGroup;
+import core.aws.resource.ec2.Instance;
+import core.aws.resource.ec2.KeyPair;
+import core.aws.resource.ec2.SecurityGroup;
+import core.aws.resource.elb.ELB;
+import core.aws.resource.image.Image;
+import core.aws.resource.vpc.VPC;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * resource types to load from aws, goals on given resource ids only need the local dependency closure of them
+ *
+ * @author neo
+ */
+public final class LoadScope {
+    public static LoadScope all() {
+        return new LoadScope(null);
+    }
+
+    public static LoadScope of(Resources resources, List<String> resourceIds) {
+        Set<Resource> closure = new HashSet<>();
+        Deque<Resource> queue = new ArrayDeque<>();
+        resources.stream().filter(resource -> resourceIds.contains(resource.id)).forEach(queue::add);
+        while (!queue.isEmpty()) {
+            Resource resource = queue.poll();
+            if (closure.add(resource)) queue.addAll(dependencies(resource));
+        }
+
+        Set<Class<?>> resourceClasses = new HashSet<>();
+        closure.forEach(resource -> resourceClasses.add(resource.getClass()));
+        resourceClasses.add(VPC.class);     // validation compares remote vpc of sg and instance
+        if (resourceClasses.contains(Image.class)) {
+            // bake needs unfinished bake instances with their sg and key pair
+            resourceClasses.addAll(Arrays.asList(Instance.class, SecurityGroup.class, KeyPair.class));
+        }
+        return new LoadScope(resourceClasses);
+    }
+
+    private static List<Resource> dependencies(Resource resource) {
+        List<Object> dependencies;
+        if (resource instanceof Instance) {
+            Instance instance = (Instance) resource;
+            dependencies = Arrays.asList(instance.securityGroup, instance.subnet, instance.keyPair, instance.instanceProfile, instance.elb, instance.ami);
+        } else if (resource instanceof ASGroup) {
+            ASGroup asGroup = (ASGroup) resource;
+            dependencies = Arrays.asList(asGroup.elb, asGroup.targetGroup, asGroup.subnet,
+                asGroup.launchConfig.securityGroup, asGroup.launchConfig.keyPair, asGroup.launchConfig.instanceProfile, asGroup.launchConfig.ami);
+        } else if (resource instanceof ELB) {
+            ELB elb = (ELB) resource;
+            dependencies = Arrays.asList(elb.securityGroup, elb.subnet, elb.cert, elb.accessLogBucket);
+        } else if (resource instanceof core.aws.resource.elb.v2.ELB) {
+            core.aws.resource.elb.v2.ELB elb = (core.aws.resource.elb.v2.ELB) resource;
+            dependencies = Arrays.asList(elb.securityGroup, elb.subnet, elb.cert, elb.targetGroup);
+        } else if (resource instanceof Image) {
+            dependencies = Arrays.asList(((Image) resource).baseAMI);
+        } else {
+            return List.of();
+        }
+        List<Resource> results = new ArrayList<>();
+        for (Object dependency : dependencies) {
+            if (dependency instanceof Resource) results.add((Resource) dependency);    // ami can be pre-baked ami, which is not resource
+        }
+        return results;
+    }
+
+    private final Set<Class<?>> resourceClasses;   // null means all
+
+    private LoadScope(Set<Class<?>> resourceClasses) {
+        this.resourceClasses = resourceClasses;
+    }
+
+    boolean includes(Class<? extends Resource> resourceClass) {
+        return resourceClasses == null || resourceClasses.contains(resourceClass);
+    }
+
+    @Override
+    public String toString() {
+        return resourceClasses == null ? "all" : resourceClasses.stream().map(Class::getSimpleName).sorted().collect(Collectors.joining(", "));
+    }
+}
@@ -20,53 +20,148 @@ import core.aws.remote.vpc.NATLoader;
 import core.aws.remote.vpc.RouteTableLoader;
 import core.aws.remote.vpc.SubnetLoader;
 import core.aws.remote.vpc.VPCLoader;
+import core.aws.resource.Resource;
 import core.aws.resource.Resources;
+import core.aws.resource.as.ASGroup;
+import core.aws.resource.ec2.Instance;
+import core.aws.resource.ec2.InstanceProfile;
+import core.aws.resource.ec2.KeyPair;
+import core.aws.resource.ec2.SecurityGroup;
+import core.aws.resource.elb.ELB;
+import core.aws.resource.elb.ServerCert;
+import core.aws.resource.elb.v2.TargetGroup;
+import core.aws.resource.image.Image;
+import core.aws.resource.s3.Bucket;
+import core.aws.resource.vpc.InternetGateway;
+import core.aws.resource.vpc.NATGateway;
+import core.aws.resource.vpc.RouteTable;
+import core.aws.resource.vpc.Subnet;
+import core.aws.resource.vpc.VPC;
 import core.aws.task.ec2.EC2TagHelper;
 import core.aws.util.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * @author neo
  */
 public class RemoteResourceLoader {
+    private static final int CONCURRENCY = 16;      // one thread per loader, all loaders are waiting on aws
+
+    private final Logger logger = LoggerFactory.getLogger(RemoteResourceLoader.class);
+
     public void load(Environment env, Resources resources) {
-        List<EnvTag> tags = loadEnvTags(env);
-
-        new ImageLoader(resources, tags).load();
-        new SGLoader(resources, tags).load();
-        new KeyPairLoader(resources, env).load();
-        new InstanceLoader(resources, tags).load(); // instance loader must after sg, key pair, image loader to link remoteOnly sg/key and unfinished bake instance
-
-        new VPCLoader(resources, tags).load();
-        new InstanceProfileLoader(resources, env).load();
-        new NATLoader(resources, tags).load();
-        new RouteTableLoader(resources, tags).load();
-        new InternetGatewayLoader(resources, tags).load();
-        new SubnetLoader(resources, tags).load();
-        new ServerCertLoader(resources, env).load();
-        new TargetGroupLoader(resources, env).load();
-        new ELBLoader(resources, env).load();
-        new core.aws.remote.elb.v2.ELBLoader(resources, env).load();
-        new ASGroupLoader(resources, env).load();
-
-        new S3Loader(resources, env).load();
+        load(env, resources, LoadScope.all());
     }
 
-    private List<EnvTag> loadEnvTags(Environment env) {
-        Map<String, EnvTag> tags = Maps.newHashMap();
+    // loaders run concurrently, each starts once its prerequisites finished, loaders out of scope are skipped
+    public void load(Environment env, Resources resources, LoadScope scope) {
+        logger.info("load remote resources, scope={}", scope);
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            Map<Class<? extends Resource>, CompletableFuture<List<EnvTag>>> tags = loadEnvTags(executor, scope, env);
+            List<CompletableFuture<?>> loaders = new ArrayList<>();
 
-        DescribeTagsRequest request = new DescribeTagsRequest()
-            .withFilters(new Filter("key").withValues(new EC2TagHelper(env).prefix() + ":*"));
-        List<TagDescription> remoteTags = AWS.getEc2().describeTags(request);
+            CompletableFuture<List<EnvTag>> imageTags = tags(tags, Image.class);
+            CompletableFuture<Void> images = load(executor, scope, Image.class, "image", () -> new ImageLoader(resources, imageTags.join()).load(), imageTags);
+            CompletableFuture<List<EnvTag>> sgTags = tags(tags, SecurityGroup.class);
+            CompletableFuture<Void> sgs = load(executor, scope, SecurityGroup.class, "sg", () -> new SGLoader(resources, sgTags.join()).load(), sgTags);
+            CompletableFuture<Void> keyPairs = load(executor, scope, KeyPair.class, "key-pair", () -> new KeyPairLoader(resources, env).load());
+            loaders.add(images);
+            loaders.add(sgs);
+            loaders.add(keyPairs);
+            // instance loader must after sg, key pair, image loader to link remoteOnly sg/key and unfinished bake instance
+            CompletableFuture<List<EnvTag>> instanceTags = tags(tags, Instance.class);
+            loaders.add(load(executor, scope, Instance.class, "instance", () -> new InstanceLoader(resources, instanceTags.join()).load(), instanceTags, images, sgs, keyPairs));
+
+            CompletableFuture<List<EnvTag>> vpcTags = tags(tags, VPC.class);
+            CompletableFuture<Void> vpc = load(executor, scope, VPC.class, "vpc", () -> new VPCLoader(resources, vpcTags.join()).load(), vpcTags);
+            loaders.add(vpc);
+            loaders.add(load(executor, scope, NATGateway.class, "nat", () -> new NATLoader(resources, List.of()).load(), vpc));     // nat is found by remote vpc id
+            loaders.add(load(executor, scope, InstanceProfile.class, "instance-profile", () -> new InstanceProfileLoader(resources, env).load()));
+            CompletableFuture<List<EnvTag>> routeTableTags = tags(tags, RouteTable.class);
+            loaders.add(load(executor, scope, RouteTable.class, "route-table", () -> new RouteTableLoader(resources, routeTableTags.join()).load(), routeTableTags));
+            CompletableFuture<List<EnvTag>> internetGatewayTags = tags(tags, InternetGateway.class);
+            loaders.add(load(executor, scope, InternetGateway.class, "internet-gateway", () -> new InternetGatewayLoader(resources, internetGatewayTags.join()).load(), internetGatewayTags));
+            CompletableFuture<List<EnvTag>> subnetTags = tags(tags, Subnet.class);
+            loaders.add(load(executor, scope, Subnet.class, "subnet", () -> new SubnetLoader(resources, subnetTags.join()).load(), subnetTags));
+            loaders.add(load(executor, scope, ServerCert.class, "server-cert", () -> new ServerCertLoader(resources, env).load()));
+            loaders.add(load(executor, scope, TargetGroup.class, "target-group", () -> new TargetGroupLoader(resources, env).load()));
+            loaders.add(load(executor, scope, ELB.class, "elb", () -> new ELBLoader(resources, env).load()));
+            loaders.add(load(executor, scope, core.aws.resource.elb.v2.ELB.class, "elb-v2", () -> new core.aws.remote.elb.v2.ELBLoader(resources, env).load()));
+            loaders.add(load(executor, scope, ASGroup.class, "as-group", () -> new ASGroupLoader(resources, env).load()));
+            loaders.add(load(executor, scope, Bucket.class, "s3", () -> new S3Loader(resources, env).load()));
+
+            CompletableFuture.allOf(loaders.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("load remote resources, elapsed={}", Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    CompletableFuture<Void> load(ExecutorService executor, LoadScope scope, Class<? extends Resource> resourceClass, String name, Runnable loader, CompletableFuture<?>... prerequisites) {
+        if (!scope.includes(resourceClass)) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.allOf(prerequisites).thenRunAsync(() -> timed(name, () -> {
+            loader.run();
+            return null;
+        }), executor);
+    }
 
-        for (TagDescription remoteTag : remoteTags) {
-            String remoteResourceId = remoteTag.getResourceId();
-            EnvTag tag = tags.computeIfAbsent(remoteResourceId, key -> new EnvTag(remoteTag));
-            tag.addField(remoteTag);
+    private <T> T timed(String name, Supplier<T> loader) {
+        AWS.getApiMetrics().trackCaller("load-" + name);
+        long startTime = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            logger.info("load remote {}, elapsed={}", name, Duration.ofNanos(System.nanoTime() - startTime));
+            AWS.getApiMetrics().trackCaller(null);
         }
+    }
+
+    // one paginated query per resource type in scope, so each loader only waits for tags of its own type
+    private Map<Class<? extends Resource>, CompletableFuture<List<EnvTag>>> loadEnvTags(ExecutorService executor, LoadScope scope, Environment env) {
+        Map<Class<? extends Resource>, CompletableFuture<List<EnvTag>>> tags = Maps.newHashMap();
+        EnvTag.RESOURCE_TYPES.forEach((resourceType, resourceClass) -> {
+            if (scope.includes(resourceClass))
+                tags.put(resourceClass, CompletableFuture.supplyAsync(() -> timed(resourceType + "-tags", () -> loadEnvTags(env, resourceType)), executor));
+        });
+        return tags;
+    }
+
+    private CompletableFuture<List<EnvTag>> tags(Map<Class<? extends Resource>, CompletableFuture<List<EnvTag>>> tags, Class<? extends Resource> resourceClass) {
+        return tags.getOrDefault(resourceClass, CompletableFuture.completedFuture(List.of()));
+    }
+
+    private List<EnvTag> loadEnvTags(Environment env, String resourceType) {
+        Map<String, EnvTag> tags = Maps.newHashMap();
+
+        DescribeTagsRequest request = new DescribeTagsRequest()
+            .withFilters(new Filter("key").withValues(new EC2TagHelper(env).prefix() + ":*"),
+                new Filter("resource-type").withValues(resourceType))
+            .withMaxResults(1000);
+        // build env tags page by page, tags of one resource may span pages
+        AWS.getEc2().describeTags(request, remoteTags -> {
+            for (TagDescription remoteTag : remoteTags) {
+                EnvTag tag = tags.computeIfAbsent(remoteTag.getResourceId(), key -> new EnvTag(remoteTag));
+                tag.addField(remoteTag);
+            }
+        });
 
         return new ArrayList<>(tags.values());
     }
@@ -11,6 +11,7 @@ import core.aws.resource.as.AutoScalingPolicy;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -28,16 +29,20 @@ public class ASGroupLoader {
     public void load() {
         String prefix = env.name + "-";
 
-        // find all AS group with prefix
-        List<AutoScalingGroup> asGroups = AWS.getAs().listASGroups().stream()
+        // find AS groups tagged with env, and check prefix as resource id is derived from name
+        List<AutoScalingGroup> asGroups = AWS.getAs().listASGroupsByTag("cloud-manager:env", env.name).stream()
                                                 .filter(group -> group.getAutoScalingGroupName().startsWith(prefix))
                                                 .collect(Collectors.toList());
 
         if (asGroups.isEmpty()) return;
 
-        // load remote launch config in one request to maximize the speed
+        // load remote launch config in one request, and policies of groups concurrently, both at same time
         List<String> launchConfigNames = asGroups.stream().map(AutoScalingGroup::getLaunchConfigurationName).collect(Collectors.toList());
-        Map<String, LaunchConfiguration> configs = AWS.getAs().describeLaunchConfigs(launchConfigNames);
+        CompletableFuture<Map<String, LaunchConfiguration>> configsFuture = AWS.getAs().describeLaunchConfigsAsync(launchConfigNames);
+        CompletableFuture<List<ScalingPolicy>> policiesFuture = AWS.getAs().describeScalingPoliciesAsync(asGroups.stream().map(AutoScalingGroup::getAutoScalingGroupName).collect(Collectors.toList()));
+        Map<String, LaunchConfiguration> configs = configsFuture.join();
+        Map<String, List<ScalingPolicy>> policies = policiesFuture.join().stream()
+                                                                  .collect(Collectors.groupingBy(ScalingPolicy::getAutoScalingGroupName));
 
         for (AutoScalingGroup remoteASGroup : asGroups) {
             String asGroupName = remoteASGroup.getAutoScalingGroupName();
@@ -48,7 +53,7 @@ public class ASGroupLoader {
             asGroup.launchConfig.remoteLaunchConfig = configs.get(remoteASGroup.getLaunchConfigurationName());
             asGroup.foundInRemote();
 
-            List<ScalingPolicy> remotePolicies = AWS.getAs().describeScalingPolicies(asGroupName);
+            List<ScalingPolicy> remotePolicies = policies.getOrDefault(asGroupName, List.of());
             for (ScalingPolicy remotePolicy : remotePolicies) {
                 String policyId = remotePolicy.getPolicyName();
                 AutoScalingPolicy policy = resources.find(AutoScalingPolicy.class, policyId)
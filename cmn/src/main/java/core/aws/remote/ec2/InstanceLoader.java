@@ -69,14 +69,14 @@ public class InstanceLoader extends Loader {
     }
 
     private void linkKeyPair(Instance instance, String remoteKeyName) {
-        Optional<KeyPair> keyPair = resources.stream().flatMap(StreamHelper.instanceOf(KeyPair.class))
+        Optional<KeyPair> keyPair = resources.all(KeyPair.class).stream()
             .filter(key -> key.remoteKeyPair != null && remoteKeyName.equals(key.remoteKeyPair.getKeyName()))
             .reduce(StreamHelper.onlyOne());
         if (keyPair.isPresent()) instance.keyPair = keyPair.get();
     }
 
     private void linkSecurityGroup(Instance instance, String remoteSGId) {
-        Optional<SecurityGroup> securityGroup = resources.stream().flatMap(StreamHelper.instanceOf(SecurityGroup.class))
+        Optional<SecurityGroup> securityGroup = resources.all(SecurityGroup.class).stream()
             .filter(sg -> sg.remoteSecurityGroup != null && remoteSGId.equals(sg.remoteSecurityGroup.getGroupId()))
             .reduce(StreamHelper.onlyOne());
         if (securityGroup.isPresent()) instance.securityGroup = securityGroup.get();
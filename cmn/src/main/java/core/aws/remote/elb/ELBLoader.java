@@ -1,6 +1,5 @@
 package core.aws.remote.elb;
 
-import com.amazonaws.services.elasticloadbalancing.model.DescribeTagsRequest;
 import com.amazonaws.services.elasticloadbalancing.model.LoadBalancerDescription;
 import com.amazonaws.services.elasticloadbalancing.model.Tag;
 import core.aws.client.AWS;
@@ -9,6 +8,8 @@ import core.aws.resource.Resources;
 import core.aws.resource.elb.ELB;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
@@ -23,11 +24,16 @@ public class ELBLoader {
     }
 
     public void load() {
-        List<LoadBalancerDescription> remoteELBs = AWS.getElb().listELBs();
+        String prefix = env.name + "-";
+        List<LoadBalancerDescription> remoteELBs = AWS.getElb().listELBs().stream()
+            .filter(remoteELB -> remoteELB.getLoadBalancerName().startsWith(prefix))
+            .collect(Collectors.toList());
+        if (remoteELBs.isEmpty()) return;
+
+        Map<String, List<Tag>> tags = AWS.getElb().describeTags(remoteELBs.stream().map(LoadBalancerDescription::getLoadBalancerName).collect(Collectors.toList()));
         for (LoadBalancerDescription remoteELB : remoteELBs) {
             String elbName = remoteELB.getLoadBalancerName();
-            String prefix = env.name + "-";
-            if (elbName.startsWith(prefix) && "1".equals(getVersion(elbName))) {
+            if ("1".equals(getVersion(tags.get(elbName)))) {
                 String resourceId = elbName.substring(prefix.length());
                 ELB elb = resources.find(ELB.class, resourceId).orElseGet(() -> resources.add(new ELB(resourceId)));
                 elb.name = elbName;
@@ -37,9 +43,8 @@ public class ELBLoader {
         }
     }
 
-    private String getVersion(String elbName) {
-        List<Tag> tags = AWS.getElb().elb.describeTags(new DescribeTagsRequest()
-            .withLoadBalancerNames(elbName)).getTagDescriptions().get(0).getTags();
+    private String getVersion(List<Tag> tags) {
+        if (tags == null) return "1";
         return tags.stream().filter(tag -> "cloud-manager:elb-version".equals(tag.getKey())).map(Tag::getValue).findFirst().orElse("1");
     }
-}
\ No newline at end of file
+}
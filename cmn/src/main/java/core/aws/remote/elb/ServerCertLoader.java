@@ -1,5 +1,6 @@
 package core.aws.remote.elb;
 
+import com.amazonaws.services.identitymanagement.model.ServerCertificate;
 import com.amazonaws.services.identitymanagement.model.ServerCertificateMetadata;
 import core.aws.client.AWS;
 import core.aws.env.Environment;
@@ -32,7 +33,7 @@ public class ServerCertLoader {
             ServerCert serverCert = resources.find(ServerCert.class, resourceId)
                                              .orElseGet(() -> resources.add(new ServerCert(resourceId)));
             serverCert.name = certName;
-            serverCert.remoteCert = AWS.getIam().getServerCert(cert.getServerCertificateName());
+            serverCert.remoteCert = new ServerCertificate().withServerCertificateMetadata(cert);    // body is fetched on demand, only sync compares it
             serverCert.foundInRemote();
         }
     }
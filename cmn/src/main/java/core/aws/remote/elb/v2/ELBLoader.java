@@ -1,6 +1,5 @@
 package core.aws.remote.elb.v2;
 
-import com.amazonaws.services.elasticloadbalancingv2.model.DescribeTagsRequest;
 import com.amazonaws.services.elasticloadbalancingv2.model.LoadBalancer;
 import com.amazonaws.services.elasticloadbalancingv2.model.Tag;
 import core.aws.client.AWS;
@@ -9,6 +8,8 @@ import core.aws.resource.Resources;
 import core.aws.resource.elb.v2.ELB;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class ELBLoader {
     private final Resources resources;
@@ -20,11 +21,16 @@ public class ELBLoader {
     }
 
     public void load() {
-        List<LoadBalancer> remoteELBs = AWS.getElbV2().listELBs();
+        String prefix = env.name + "-";
+        List<LoadBalancer> remoteELBs = AWS.getElbV2().listELBs().stream()
+            .filter(remoteELB -> remoteELB.getLoadBalancerName().startsWith(prefix))
+            .collect(Collectors.toList());
+        if (remoteELBs.isEmpty()) return;
+
+        Map<String, List<Tag>> tags = AWS.getElbV2().describeTags(remoteELBs.stream().map(LoadBalancer::getLoadBalancerArn).collect(Collectors.toList()));
         for (LoadBalancer remoteELB : remoteELBs) {
             String elbName = remoteELB.getLoadBalancerName();
-            String prefix = env.name + "-";
-            if (elbName.startsWith(prefix) && "2".equals(getVersion(remoteELB.getLoadBalancerArn()))) {
+            if ("2".equals(getVersion(tags.get(remoteELB.getLoadBalancerArn())))) {
                 String resourceId = elbName.substring(prefix.length());
                 ELB elb = resources.find(ELB.class, resourceId).orElseGet(() -> resources.add(new ELB(resourceId)));
                 elb.name = elbName;
@@ -34,9 +40,8 @@ public class ELBLoader {
         }
     }
 
-    private String getVersion(String elbARN) {
-        List<Tag> tags = AWS.getElbV2().elb.describeTags(new DescribeTagsRequest()
-            .withResourceArns(elbARN)).getTagDescriptions().get(0).getTags();
+    private String getVersion(List<Tag> tags) {
+        if (tags == null) return "1";
         return tags.stream().filter(tag -> "cloud-manager:elb-version".equals(tag.getKey())).map(Tag::getValue).findFirst().orElse("1");
     }
 }
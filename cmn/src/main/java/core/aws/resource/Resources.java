@@ -10,26 +10,51 @@ import core.aws.resource.vpc.VPC;
 import core.aws.util.StreamHelper;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
 /**
+ * thread safe, remote loaders run concurrently
+ *
  * @author neo
  */
 public class Resources {
     private final List<Resource> resources = new ArrayList<>();
+    // indexed by exact resource class, lookup by super class goes thru all matched classes, which are few
+    private final Map<Class<?>, List<Resource>> resourcesByClass = new HashMap<>();
+    private final Map<Class<?>, Map<String, List<Resource>>> resourcesById = new HashMap<>();
     public final VPC vpc;
 
     public Resources() {
-        vpc = new VPC();
-        resources.add(vpc);
+        vpc = add(new VPC());
     }
 
-    public <T extends Resource> Optional<T> find(Class<T> resourceClass, String resourceId) {
-        return resources.stream().flatMap(StreamHelper.instanceOf(resourceClass))
-            .filter(resource -> resource.id.equals(resourceId))
-            .reduce(StreamHelper.onlyOne());
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Resource> Optional<T> find(Class<T> resourceClass, String resourceId) {
+        T result = null;
+        for (Map.Entry<Class<?>, Map<String, List<Resource>>> entry : resourcesById.entrySet()) {
+            if (!resourceClass.isAssignableFrom(entry.getKey())) continue;
+            List<Resource> resources = entry.getValue().get(resourceId);
+            if (resources == null) continue;
+            for (Resource resource : resources) {
+                if (result != null) throw new IllegalStateException("multiple items found, items=" + result + ", " + resource);
+                result = (T) resource;
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+
+    // all resources of given class or its sub classes
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Resource> List<T> all(Class<T> resourceClass) {
+        List<T> results = new ArrayList<>();
+        resourcesByClass.forEach((key, resources) -> {
+            if (resourceClass.isAssignableFrom(key)) results.addAll((List<T>) resources);
+        });
+        return results;
     }
 
     public <T extends Resource> T get(Class<T> resourceClass, String resourceId) {
@@ -38,11 +63,14 @@ public class Resources {
     }
 
     public <T extends Resource> Optional<T> onlyOne(Class<T> resourceClass) {
-        return resources.stream().flatMap(StreamHelper.instanceOf(resourceClass)).reduce(StreamHelper.onlyOne());
+        return all(resourceClass).stream().reduce(StreamHelper.onlyOne());
     }
 
-    public <T extends Resource> T add(T resource) {
+    public synchronized <T extends Resource> T add(T resource) {
         resources.add(resource);
+        resourcesByClass.computeIfAbsent(resource.getClass(), key -> new ArrayList<>()).add(resource);
+        resourcesById.computeIfAbsent(resource.getClass(), key -> new HashMap<>())
+            .computeIfAbsent(resource.id, key -> new ArrayList<>(1)).add(resource);
         return resource;
     }
 
@@ -53,15 +81,16 @@ public class Resources {
     }
 
     public Optional<Subnet> firstPublicSubnet() {
-        return resources.stream().flatMap(StreamHelper.instanceOf(Subnet.class))
+        return all(Subnet.class).stream()
             .filter(resource -> resource.type == SubnetType.PUBLIC).findFirst();
     }
 
     public void validate() {
-        resources.forEach(resource -> resource.validate(this));
+        stream().forEach(resource -> resource.validate(this));
     }
 
-    public Stream<Resource> stream() {
-        return resources.stream();
+    // snapshot, remote loaders add resources concurrently
+    public synchronized Stream<Resource> stream() {
+        return new ArrayList<>(resources).stream();
     }
 }
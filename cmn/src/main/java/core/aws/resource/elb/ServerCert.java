@@ -1,6 +1,7 @@
 package core.aws.resource.elb;
 
 import com.amazonaws.services.identitymanagement.model.ServerCertificate;
+import core.aws.client.AWS;
 import core.aws.env.Environment;
 import core.aws.resource.Resource;
 import core.aws.task.elb.CreateServerCertTask;
@@ -45,11 +46,18 @@ public class ServerCert extends Resource {
     }
 
     public boolean changed() {
-        String remoteCertBody = normalize(remoteCert.getCertificateBody());
+        String remoteCertBody = normalize(remoteCertBody());
         String localCertBody = normalize(certificate);
         return !remoteCertBody.equals(localCertBody);
     }
 
+    // remote loader only loads cert metadata
+    private synchronized String remoteCertBody() {
+        if (remoteCert.getCertificateBody() == null)
+            remoteCert = AWS.getIam().getServerCert(remoteCert.getServerCertificateMetadata().getServerCertificateName());
+        return remoteCert.getCertificateBody();
+    }
+
     private String normalize(String cert) {
         // clean windows/unix line separator and spaces
         return cert.replace("\r", "").replace("\n", "").replace(" ", "");
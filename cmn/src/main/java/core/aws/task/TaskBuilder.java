@@ -1,11 +1,14 @@
 package core.aws.task;
 
+import com.amazonaws.services.identitymanagement.model.ServerCertificate;
+import core.aws.client.AWS;
 import core.aws.env.Context;
 import core.aws.env.Goal;
 import core.aws.env.Param;
 import core.aws.resource.ResourceStatus;
 import core.aws.resource.Resources;
 import core.aws.resource.ServerResource;
+import core.aws.resource.elb.ServerCert;
 import core.aws.resource.image.Image;
 import core.aws.util.Exceptions;
 import core.aws.workflow.Tasks;
@@ -14,8 +17,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
@@ -43,11 +48,20 @@ public class TaskBuilder {
         } else if (serverGoals.contains(goal)) {
             serverTasks(resourceIds, tasks);
         } else {
+            if (goal == Goal.SYNC) loadServerCertBodies();
             resources.stream().forEach(resource -> resource.tasks(goal, tasks));
         }
         return tasks;
     }
 
+    // sync compares cert body of existing certs, fetch them concurrently instead of one by one on demand
+    private void loadServerCertBodies() {
+        List<ServerCert> certs = resources.all(ServerCert.class).stream().filter(cert -> cert.status == ResourceStatus.LOCAL_REMOTE).collect(Collectors.toList());
+        if (certs.isEmpty()) return;
+        Map<String, ServerCertificate> remoteCerts = AWS.getIam().getServerCerts(certs.stream().map(cert -> cert.name).collect(Collectors.toList()));
+        certs.forEach(cert -> cert.remoteCert = remoteCerts.getOrDefault(cert.name, cert.remoteCert));
+    }
+
     private void serverTasks(List<String> resourceIds, Tasks tasks) {
         if (resourceIds != null) {
             Optional<String> invalidResourceId = resourceIds.stream().filter(resourceId -> resources.stream().noneMatch(resource -> resource.id.equals(resourceId))).findFirst();
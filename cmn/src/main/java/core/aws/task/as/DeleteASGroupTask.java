@@ -12,7 +12,7 @@ import java.util.stream.Collectors;
 /**
  * @author neo
  */
-@Action("del-asg")
+@Action(value = "del-asg", cost = 90)
 public class DeleteASGroupTask extends Task<ASGroup> {
     public DeleteASGroupTask(ASGroup asGroup) {
         super(asGroup);
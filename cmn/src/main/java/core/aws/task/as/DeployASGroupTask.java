@@ -2,7 +2,6 @@ package core.aws.task.as;
 
 import com.amazonaws.services.autoscaling.model.Instance;
 import com.amazonaws.services.autoscaling.model.UpdateAutoScalingGroupRequest;
-import com.amazonaws.services.ec2.model.DescribeInstanceStatusRequest;
 import com.amazonaws.services.ec2.model.InstanceStatus;
 import com.amazonaws.services.elasticloadbalancing.model.InstanceState;
 import core.aws.client.AWS;
@@ -10,12 +9,14 @@ import core.aws.env.Context;
 import core.aws.env.Environment;
 import core.aws.resource.as.ASGroup;
 import core.aws.util.Threads;
+import core.aws.util.Waiter;
 import core.aws.workflow.Action;
 import core.aws.workflow.Task;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -32,7 +33,7 @@ import java.util.stream.Collectors;
  *
  * @author neo
  */
-@Action("deploy-asg")
+@Action(value = "deploy-asg", cost = 900)
 public class DeployASGroupTask extends Task<ASGroup> {
     private final Logger logger = LoggerFactory.getLogger(DeployASGroupTask.class);
 
@@ -124,88 +125,91 @@ public class DeployASGroupTask extends Task<ASGroup> {
     }
 
     private List<String> waitUntilInstanceAttachedToASG() {
-        List<String> newInstanceIds;
-        while (true) {
-            Threads.sleepRoughly(Duration.ofSeconds(30));
-            com.amazonaws.services.autoscaling.model.AutoScalingGroup remoteASGroup = AWS.getAs().describeASGroup(asGroupName);
-
-            for (Instance instance : remoteASGroup.getInstances()) {
-                logger.info("instance status, instanceId={}, lifecycle={}, health={}, new={}",
-                    instance.getInstanceId(),
-                    instance.getLifecycleState(),
-                    instance.getHealthStatus(),
-                    !oldInstanceIds.contains(instance.getInstanceId()));
-            }
+        return new Waiter("asg-instances-in-service")
+            .initialInterval(Duration.ofSeconds(10))
+            .maxInterval(Duration.ofSeconds(30))
+            .timeout(Duration.ofMinutes(30))
+            .get(() -> {
+                com.amazonaws.services.autoscaling.model.AutoScalingGroup remoteASGroup = AWS.getAs().describeASGroup(asGroupName);
+
+                for (Instance instance : remoteASGroup.getInstances()) {
+                    logger.info("instance status, instanceId={}, lifecycle={}, health={}, new={}",
+                        instance.getInstanceId(),
+                        instance.getLifecycleState(),
+                        instance.getHealthStatus(),
+                        !oldInstanceIds.contains(instance.getInstanceId()));
+                }
 
-            long inServiceCount = remoteASGroup.getInstances().stream().filter(instance -> "InService".equals(instance.getLifecycleState())).count();
+                long inServiceCount = remoteASGroup.getInstances().stream().filter(instance -> "InService".equals(instance.getLifecycleState())).count();
 
-            if (inServiceCount < remoteASGroup.getDesiredCapacity()) {
-                logger.info("continue to wait, not all instances are ready, inService={}, desired={}", inServiceCount, remoteASGroup.getDesiredCapacity());
-            } else {
+                if (inServiceCount < remoteASGroup.getDesiredCapacity()) {
+                    logger.info("continue to wait, not all instances are ready, inService={}, desired={}", inServiceCount, remoteASGroup.getDesiredCapacity());
+                    return null;
+                }
                 logger.info("all instances of auto scaling group are in service");
-                newInstanceIds = remoteASGroup.getInstances().stream()
+                return remoteASGroup.getInstances().stream()
                     .filter(instance -> !oldInstanceIds.contains(instance.getInstanceId()))
                     .map(Instance::getInstanceId)
                     .collect(Collectors.toList());
-                break;
-            }
-        }
-        return newInstanceIds;
+            });
     }
 
     private void waitUntilInstanceRunning(List<String> newInstanceIds) {
-        while (true) {
-            Threads.sleepRoughly(Duration.ofSeconds(30));
-            List<InstanceStatus> statuses = AWS.getEc2().ec2.describeInstanceStatus(new DescribeInstanceStatusRequest()
-                .withInstanceIds(newInstanceIds)).getInstanceStatuses();
-
-            for (InstanceStatus status : statuses) {
-                logger.info("instance status {} => {}, checks => {}, {}",
-                    status.getInstanceId(),
-                    status.getInstanceState().getName(),
-                    status.getSystemStatus().getStatus(),
-                    status.getInstanceStatus().getStatus());
-            }
+        new Waiter("asg-instances-running")
+            .initialInterval(Duration.ofSeconds(10))
+            .maxInterval(Duration.ofSeconds(30))
+            .timeout(Duration.ofMinutes(15))
+            .until(() -> {
+                Collection<InstanceStatus> statuses = AWS.getEc2().describeInstanceStatus(newInstanceIds).values();
+
+                for (InstanceStatus status : statuses) {
+                    logger.info("instance status {} => {}, checks => {}, {}",
+                        status.getInstanceId(),
+                        status.getInstanceState().getName(),
+                        status.getSystemStatus().getStatus(),
+                        status.getInstanceStatus().getStatus());
+                }
 
-            boolean allOK = statuses.stream().allMatch(status ->
-                    "running".equalsIgnoreCase(status.getInstanceState().getName())
-                        && "ok".equalsIgnoreCase(status.getSystemStatus().getStatus())
-                        && "ok".equalsIgnoreCase(status.getInstanceStatus().getStatus())
-            );
+                boolean allOK = statuses.stream().allMatch(status ->
+                        "running".equalsIgnoreCase(status.getInstanceState().getName())
+                            && "ok".equalsIgnoreCase(status.getSystemStatus().getStatus())
+                            && "ok".equalsIgnoreCase(status.getInstanceStatus().getStatus())
+                );
 
-            if (allOK) {
-                logger.info("all new instances are running");
-                break;
-            } else {
-                logger.info("continue to wait, not all new instances are running");
-            }
-        }
+                if (allOK) {
+                    logger.info("all new instances are running");
+                } else {
+                    logger.info("continue to wait, not all new instances are running");
+                }
+                return allOK;
+            });
     }
 
     private void waitUntilInstanceAttachedToELB(List<String> newInstanceIds) {
         if (resource.elb != null) {
-            int attempts = 0;
-            while (true) {
-                attempts++;
-                Threads.sleepRoughly(Duration.ofSeconds(15));
-
-                List<InstanceState> states = AWS.getElb().describeInstanceHealth(resource.elb.remoteELB.getLoadBalancerName(), newInstanceIds);
-
-                for (InstanceState state : states) {
-                    logger.info("ELB instance state {} => {}", state.getInstanceId(), state.getState());
-                }
-
-                boolean allInService = states.stream().allMatch(state -> "InService".equalsIgnoreCase(state.getState()));
-                if (allInService) {
-                    logger.info("all new instances of ELB are in service");
-                    break;
-                } else if (attempts >= 30) {
-                    // roughly wait 30*15=450 seconds, where ASG health check grace period is 300 seconds
-                    logger.warn("failed to wait all instances to be attached to ELB, it could be instance failed health check after grace period, ASG probably already created new instances to replace, please check AWS console for more details");
-                    break;
-                } else {
-                    logger.info("continue to wait, not all new instances are in service");
-                }
+            try {
+                // ASG health check grace period is 300 seconds
+                new Waiter("asg-instances-in-elb")
+                    .initialInterval(Duration.ofSeconds(5))
+                    .maxInterval(Duration.ofSeconds(15))
+                    .timeout(Duration.ofSeconds(450))
+                    .until(() -> {
+                        List<InstanceState> states = AWS.getElb().describeInstanceHealth(resource.elb.remoteELB.getLoadBalancerName(), newInstanceIds);
+
+                        for (InstanceState state : states) {
+                            logger.info("ELB instance state {} => {}", state.getInstanceId(), state.getState());
+                        }
+
+                        boolean allInService = states.stream().allMatch(state -> "InService".equalsIgnoreCase(state.getState()));
+                        if (allInService) {
+                            logger.info("all new instances of ELB are in service");
+                        } else {
+                            logger.info("continue to wait, not all new instances are in service");
+                        }
+                        return allInService;
+                    });
+            } catch (Waiter.WaitTimeoutException e) {
+                logger.warn("failed to wait all instances to be attached to ELB, it could be instance failed health check after grace period, ASG probably already created new instances to replace, please check AWS console for more details");
             }
         }
     }
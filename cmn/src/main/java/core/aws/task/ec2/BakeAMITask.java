@@ -14,14 +14,16 @@ import com.amazonaws.services.ec2.model.Subnet;
 import core.aws.client.AWS;
 import core.aws.env.Context;
 import core.aws.env.Environment;
+import core.aws.env.Param;
 import core.aws.resource.ec2.Instance;
 import core.aws.resource.ec2.InstanceState;
 import core.aws.resource.ec2.KeyPair;
 import core.aws.resource.image.Image;
 import core.aws.task.linux.AnsibleProvisioner;
+import core.aws.task.linux.UploadMode;
 import core.aws.util.Asserts;
 import core.aws.util.Lists;
-import core.aws.util.Threads;
+import core.aws.util.Waiter;
 import core.aws.workflow.Action;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +36,7 @@ import java.time.format.DateTimeFormatter;
 /**
  * @author neo
  */
-@Action("bake")
+@Action(value = "bake", cost = 1200)
 public class BakeAMITask extends core.aws.workflow.Task<Image> {
     private final Logger logger = LoggerFactory.getLogger(BakeAMITask.class);
 
@@ -77,6 +79,7 @@ public class BakeAMITask extends core.aws.workflow.Task<Image> {
         }
 
         AnsibleProvisioner provisioner = new AnsibleProvisioner(context.env, instance, resource.playbook, resource.packageDir);
+        provisioner.uploadMode = UploadMode.parse(context.param(Param.UPLOAD_MODE));
         provisioner.additionalVariables.put("tomcat_service_state", "stopped");
         provisioner.additionalVariables.put("supervisor_service_state", "stopped");
         provisioner.additionalVariables.put("nginx_service_state", "stopped");
@@ -94,17 +97,18 @@ public class BakeAMITask extends core.aws.workflow.Task<Image> {
 
     private void waitUntilAMIFinished(String imageId) {
         logger.info("wait until AMI finished, imageId={}", imageId);
-        while (true) {
-            DescribeImagesResult result = AWS.getEc2().ec2.describeImages(new DescribeImagesRequest().withImageIds(imageId));
-            String state = result.getImages().get(0).getState();
-            logger.info("AMI state {} => {}", imageId, state);
-            if ("available".equals(state)) {
-                break;
-            } else if ("failed".equals(state)) {
-                throw new IllegalStateException("AMI failed to create, please check AWS console for more details");
-            }
-            Threads.sleepRoughly(Duration.ofSeconds(30));
-        }
+        new Waiter("ami-available")
+            .initialInterval(Duration.ofSeconds(15))
+            .maxInterval(Duration.ofSeconds(60))
+            .timeout(Duration.ofHours(2))
+            .until(() -> {
+                DescribeImagesResult result = AWS.getEc2().ec2.describeImages(new DescribeImagesRequest().withImageIds(imageId));
+                String state = result.getImages().get(0).getState();
+                logger.info("AMI state {} => {}", imageId, state);
+                if ("failed".equals(state))
+                    throw new IllegalStateException("AMI failed to create, please check AWS console for more details");
+                return "available".equals(state);
+            });
     }
 
     private String createAMI(Context context, String instanceId) throws Exception {
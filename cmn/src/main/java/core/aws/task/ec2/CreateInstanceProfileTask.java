@@ -12,7 +12,7 @@ import java.time.Duration;
 /**
  * @author neo
  */
-@Action("create-instance-profile")
+@Action(value = "create-instance-profile", cost = 15)
 public class CreateInstanceProfileTask extends Task<InstanceProfile> {
     public CreateInstanceProfileTask(InstanceProfile instanceProfile) {
         super(instanceProfile);
@@ -26,7 +26,7 @@ import java.util.stream.Collectors;
 /**
  * @author neo
  */
-@Action("create-instance")
+@Action(value = "create-instance", cost = 240)
 public class CreateInstanceTask extends Task<Instance> {
     private final int count;
     private final boolean waitUntilInService;
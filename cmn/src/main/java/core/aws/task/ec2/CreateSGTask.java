@@ -13,7 +13,7 @@ import java.time.Duration;
 /**
  * @author neo
  */
-@Action("create-sg")
+@Action(value = "create-sg", cost = 10)
 public class CreateSGTask extends core.aws.workflow.Task<SecurityGroup> {
     public CreateSGTask(SecurityGroup securityGroup) {
         super(securityGroup);
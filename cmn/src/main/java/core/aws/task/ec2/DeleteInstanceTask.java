@@ -17,7 +17,7 @@ import java.util.stream.Collectors;
 /**
  * @author neo
  */
-@Action("del-instance")
+@Action(value = "del-instance", cost = 90)
 public class DeleteInstanceTask extends Task<Instance> {
     private final Logger logger = LoggerFactory.getLogger(DeleteInstanceTask.class);
 
@@ -6,6 +6,7 @@ import core.aws.resource.ec2.Instance;
 import core.aws.resource.ec2.InstanceState;
 import core.aws.resource.image.Image;
 import core.aws.task.linux.AnsibleProvisioner;
+import core.aws.task.linux.UploadMode;
 import core.aws.util.Asserts;
 import core.aws.workflow.Action;
 import core.aws.workflow.Task;
@@ -21,7 +22,7 @@ import java.util.Optional;
 /**
  * @author neo
  */
-@Action("provision-instance")
+@Action(value = "provision-instance", cost = 600)
 public class ProvisionInstanceTask extends Task<Instance> {
     private final Logger logger = LoggerFactory.getLogger(ProvisionInstanceTask.class);
 
@@ -44,6 +45,7 @@ public class ProvisionInstanceTask extends Task<Instance> {
             if (InstanceState.RUNNING.equalsTo(remoteInstance.getState()) && indexMatches(index, i)) {
                 provisionedInstanceIds.add(remoteInstance.getInstanceId());
                 AnsibleProvisioner provisioner = new AnsibleProvisioner(context.env, remoteInstance, playbookPath, packageDir);
+                provisioner.uploadMode = UploadMode.parse(context.param(Param.UPLOAD_MODE));
                 provisioner.provision();
             }
         }
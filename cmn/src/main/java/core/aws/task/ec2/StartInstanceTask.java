@@ -12,7 +12,7 @@ import java.util.List;
 /**
  * @author neo
  */
-@Action("start-instance")
+@Action(value = "start-instance", cost = 180)
 public class StartInstanceTask extends Task<Instance> {
     public StartInstanceTask(Instance instance) {
         super(instance);
@@ -12,7 +12,7 @@ import java.util.List;
 /**
  * @author neo
  */
-@Action("stop-instance")
+@Action(value = "stop-instance", cost = 90)
 public class StopInstanceTask extends Task<Instance> {
     public StopInstanceTask(Instance instance) {
         super(instance);
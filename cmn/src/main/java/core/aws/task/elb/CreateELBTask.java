@@ -25,7 +25,7 @@ import java.util.stream.Collectors;
 /**
  * @author neo
  */
-@Action("create-elb")
+@Action(value = "create-elb", cost = 20)
 public class CreateELBTask extends Task<ELB> {
     public CreateELBTask(ELB elb) {
         super(elb);
@@ -13,7 +13,7 @@ import java.time.Duration;
 /**
  * @author neo
  */
-@Action("create-cert")
+@Action(value = "create-cert", cost = 15)
 public class CreateServerCertTask extends Task<ServerCert> {
     public CreateServerCertTask(ServerCert serverCert) {
         super(serverCert);
@@ -14,7 +14,7 @@ import java.time.Duration;
 /**
  * @author neo
  */
-@Action("del-elb")
+@Action(value = "del-elb", cost = 120)
 public class DeleteELBTask extends Task<ELB> {
     private final Logger logger = LoggerFactory.getLogger(DeleteELBTask.class);
 
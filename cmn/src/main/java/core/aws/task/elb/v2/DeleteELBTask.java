@@ -11,7 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 
-@Action("delete-elb")
+@Action(value = "delete-elb", cost = 120)
 public class DeleteELBTask extends Task<ELB> {
     private final Logger logger = LoggerFactory.getLogger(DeleteELBTask.class);
 
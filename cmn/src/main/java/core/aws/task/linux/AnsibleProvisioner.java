@@ -34,6 +34,7 @@ public class AnsibleProvisioner {
     private final Path playbookPath;
     private final Optional<Path> packageDir;
     public Map<String, String> additionalVariables = Maps.newHashMap();
+    public UploadMode uploadMode = UploadMode.SFTP;
 
     public AnsibleProvisioner(Environment env, Instance instance, Path playbookPath, Optional<Path> packageDir) {
         this.env = env;
@@ -85,8 +86,8 @@ public class AnsibleProvisioner {
         return tarFile.toPath();
     }
 
-    private void uploadPackage(SSH ssh) {
-        packageDir.ifPresent(path -> ssh.uploadDir(path, "/opt/packages"));
+    private void uploadPackage(SSH ssh) throws JSchException, IOException, InterruptedException {
+        if (packageDir.isPresent()) uploadMode.upload(ssh, packageDir.get(), "/opt/packages");
     }
 
     private String hostName(Instance instance) {
@@ -9,16 +9,38 @@ import core.aws.env.Param;
 import core.aws.resource.ec2.InstanceState;
 import core.aws.resource.ec2.KeyPair;
 import core.aws.util.Asserts;
+import core.aws.util.Charsets;
+import core.aws.util.Exceptions;
 import core.aws.util.SSH;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
+ * run on instances one by one and stop on first failure by default, output is streamed as it arrives,
+ * --parallel=N runs on N instances at same time, --batch=N runs in rolling batches of N and stops after batch with failure,
+ * with more than one instance at same time, output of each instance is printed in one block when it finishes
+ *
  * @author neo
  */
 public class LinuxCommandRunner {
+    private static final int SLOWEST_HOSTS = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(LinuxCommandRunner.class);
+    private final Logger messageLogger = LoggerFactory.getLogger("message");
     private final Environment env;
     private final List<Instance> remoteInstances;
     private final Context context;
@@ -29,7 +51,7 @@ public class LinuxCommandRunner {
         this.context = context;
     }
 
-    public void run() throws IOException, JSchException, SftpException, InterruptedException {
+    public void run() throws InterruptedException, ExecutionException {
         List<String> commands = context.params(Param.EXECUTE_COMMAND);
         String script = context.param(Param.EXECUTE_SCRIPT);
 
@@ -37,27 +59,156 @@ public class LinuxCommandRunner {
 
         String index = context.param(Param.INSTANCE_INDEX);
 
+        List<Instance> instances = new ArrayList<>();
         for (int i = 0; i < remoteInstances.size(); i++) {
             Instance remoteInstance = remoteInstances.get(i);
             if (InstanceState.RUNNING.equalsTo(remoteInstance.getState()) && indexMatches(index, i)) {
-                try (SSH ssh = new SSH(remoteInstance.getPublicDnsName(), "ubuntu", KeyPair.keyFile(remoteInstance.getKeyName(), env))) {
-                    if (commands != null) {
-                        ssh.executeCommands(commands.toArray(new String[0]));
-                    } else {
-                        executeScript(ssh, env.envDir.resolve(script));
-                    }
+                instances.add(remoteInstance);
+            }
+        }
+        if (instances.isEmpty()) {
+            logger.info("no running instance to execute");
+            return;
+        }
+
+        String parallel = context.param(Param.EXECUTE_PARALLEL);
+        String batch = context.param(Param.EXECUTE_BATCH);
+        Asserts.isTrue(parallel == null || batch == null, "{} and {} can not be used together", Param.EXECUTE_PARALLEL.key, Param.EXECUTE_BATCH.key);
+        int concurrency = 1;
+        int batchSize = 1;
+        if (parallel != null) {
+            concurrency = positiveInt(Param.EXECUTE_PARALLEL, parallel);
+            batchSize = instances.size();
+        } else if (batch != null) {
+            batchSize = positiveInt(Param.EXECUTE_BATCH, batch);
+            concurrency = batchSize;
+        }
+        boolean stopOnFailure = parallel == null;
+        logger.info("execute on instances, instances={}, concurrency={}, batchSize={}", instances.size(), concurrency, batchSize);
+
+        boolean buffered = concurrency > 1;
+        List<Result> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, instances.size()));
+        try {
+            for (int start = 0; start < instances.size(); start += batchSize) {
+                List<Future<Result>> futures = new ArrayList<>();
+                for (Instance instance : instances.subList(start, Math.min(start + batchSize, instances.size()))) {
+                    futures.add(executor.submit(() -> execute(instance, commands, script, buffered)));
+                }
+                for (Future<Result> future : futures) {
+                    results.add(future.get());
+                }
+                if (stopOnFailure && results.stream().anyMatch(result -> !result.succeeded())) {
+                    logger.warn("stop executing on rest instances due to failure, skipped={}", instances.size() - results.size());
+                    break;
                 }
             }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        printSummary(instances.size(), results);
+
+        List<String> failedInstanceIds = results.stream().filter(result -> !result.succeeded()).map(result -> result.instanceId).collect(Collectors.toList());
+        if (!failedInstanceIds.isEmpty()) throw Exceptions.error("failed to execute on instances, failed={}", failedInstanceIds);
+    }
+
+    private Result execute(Instance instance, List<String> commands, String script, boolean buffered) {
+        String host = instance.getPublicDnsName();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream output = buffered ? buffer : new MessageOutputStream();
+        if (!buffered) messageLogger.info("\n----- {} ({}) -----\n", instance.getInstanceId(), host);
+        long startTime = System.nanoTime();
+        int exitStatus;
+        String tail = "";
+        try (SSH ssh = new SSH(host, "ubuntu", KeyPair.keyFile(instance.getKeyName(), env))) {
+            SSH.CommandResult commandResult = commands != null
+                ? ssh.executeCommands(output, commands.toArray(new String[0]))
+                : executeScript(ssh, env.envDir.resolve(script), output);
+            exitStatus = commandResult.exitStatus;
+            tail = commandResult.tail;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitStatus = -1;
+        } catch (IOException | JSchException | SftpException | RuntimeException e) {
+            logger.warn("failed to execute, instanceId={}, host={}", instance.getInstanceId(), host, e);
+            buffer.writeBytes(("\n" + e.getMessage() + "\n").getBytes(Charsets.UTF_8));
+            exitStatus = -1;
+            tail = e.getMessage();
+        }
+
+        Result result = new Result(instance.getInstanceId(), host, exitStatus, lastLine(tail), Duration.ofNanos(System.nanoTime() - startTime));
+        if (buffered) {
+            messageLogger.info("\n----- {} ({}), exitStatus={}, elapsed={} -----\n{}", result.instanceId, host, exitStatus, result.elapsed,
+                new String(buffer.toByteArray(), Charsets.UTF_8));   // print whole output of host in one block when it finishes
+        } else {
+            messageLogger.info("\n----- {} ({}), exitStatus={}, elapsed={} -----\n", result.instanceId, host, exitStatus, result.elapsed);
+        }
+        return result;
+    }
+
+    private void printSummary(int total, List<Result> results) {
+        List<Result> failedResults = results.stream().filter(result -> !result.succeeded()).collect(Collectors.toList());
+        messageLogger.info("\nexec summary: total={}, succeeded={}, failed={}, skipped={}\n",
+            total, results.size() - failedResults.size(), failedResults.size(), total - results.size());
+        for (Result result : failedResults) {
+            messageLogger.info("failed => {} ({}), exitStatus={}, lastLine={}\n", result.instanceId, result.host, result.exitStatus, result.lastLine);
         }
+        results.stream().sorted(Comparator.comparing((Result result) -> result.elapsed).reversed()).limit(SLOWEST_HOSTS)
+               .forEach(result -> messageLogger.info("slowest => {} ({}), elapsed={}\n", result.instanceId, result.host, result.elapsed));
+    }
+
+    private String lastLine(String tail) {
+        if (tail == null) return "";
+        String[] lines = tail.trim().split("\r?\n");
+        return lines[lines.length - 1];
+    }
+
+    private int positiveInt(Param param, String value) {
+        Asserts.isTrue(value.matches("\\d{1,9}") && Integer.parseInt(value) > 0, "{} must be positive integer, value={}", param.key, value);
+        return Integer.parseInt(value);
     }
 
     private boolean indexMatches(String requestedIndex, int instanceInstance) {
         return requestedIndex == null || Integer.parseInt(requestedIndex) == instanceInstance;
     }
 
-    private void executeScript(SSH ssh, Path scriptPath) throws IOException, SftpException, JSchException, InterruptedException {
+    private SSH.CommandResult executeScript(SSH ssh, Path scriptPath, OutputStream output) throws IOException, SftpException, JSchException, InterruptedException {
         String path = "/tmp/" + scriptPath.getFileName().toString();
         ssh.put(scriptPath, path);
-        ssh.executeCommands("chmod +rx " + path, path);
+        return ssh.executeCommands(output, "chmod +rx " + path, path);
+    }
+
+    // print output of single instance as it arrives
+    private final class MessageOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            messageLogger.info(new String(bytes, offset, length, Charsets.UTF_8));
+        }
+    }
+
+    private static final class Result {
+        final String instanceId;
+        final String host;
+        final int exitStatus;
+        final String lastLine;
+        final Duration elapsed;
+
+        Result(String instanceId, String host, int exitStatus, String lastLine, Duration elapsed) {
+            this.instanceId = instanceId;
+            this.host = host;
+            this.exitStatus = exitStatus;
+            this.lastLine = lastLine;
+            this.elapsed = elapsed;
+        }
+
+        boolean succeeded() {
+            return exitStatus == 0;
+        }
     }
 }
@@ -8,16 +8,25 @@ import core.aws.env.Environment;
 import core.aws.env.Param;
 import core.aws.resource.ec2.InstanceState;
 import core.aws.resource.ec2.KeyPair;
+import core.aws.util.Charsets;
 import core.aws.util.SSH;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
  */
 public class LinuxUploader {
+    private static final String REMOTE_PACKAGE_DIR = "/opt/packages";
+    private static final int DELETE_BATCH_SIZE = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(LinuxUploader.class);
     private final Environment env;
     private final List<Instance> remoteInstances;
     private final Context context;
@@ -30,6 +39,9 @@ public class LinuxUploader {
 
     public void upload() throws IOException, JSchException, SftpException, InterruptedException {
         String packageDir = context.requiredParam(Param.PACKAGE_DIR);
+        UploadMode mode = UploadMode.parse(context.param(Param.UPLOAD_MODE));
+        PackageManifest manifest = "true".equals(context.param(Param.UPLOAD_DELTA))
+            ? PackageManifest.local(Paths.get(packageDir), env.runtimeDir.resolve("package-manifest-cache")) : null;
 
         String index = context.param(Param.INSTANCE_INDEX);
 
@@ -37,12 +49,36 @@ public class LinuxUploader {
             Instance remoteInstance = remoteInstances.get(i);
             if (InstanceState.RUNNING.equalsTo(remoteInstance.getState()) && indexMatches(index, i)) {
                 try (SSH ssh = new SSH(remoteInstance.getPublicDnsName(), "ubuntu", KeyPair.keyFile(remoteInstance.getKeyName(), env))) {
-                    ssh.uploadDir(Paths.get(packageDir), "/opt/packages");
+                    if (manifest != null) uploadDelta(ssh, remoteInstance.getPublicDnsName(), mode, Paths.get(packageDir), manifest);
+                    else mode.upload(ssh, Paths.get(packageDir), REMOTE_PACKAGE_DIR);
                 }
             }
         }
     }
 
+    // manifest is written after files, if upload is interrupted, files are sent again next time
+    private void uploadDelta(SSH ssh, String host, UploadMode mode, Path localDir, PackageManifest manifest) throws IOException, JSchException, SftpException, InterruptedException {
+        String manifestPath = REMOTE_PACKAGE_DIR + "/" + PackageManifest.FILE_NAME;
+        byte[] remoteContent = ssh.get(manifestPath);
+        PackageManifest remoteManifest = PackageManifest.parse(remoteContent == null ? "" : new String(remoteContent, Charsets.UTF_8));
+        List<String> changedFiles = manifest.changedFiles(remoteManifest);
+        List<String> deletedFiles = manifest.deletedFiles(remoteManifest);
+        logger.info("upload package delta, host={}, changed={}, deleted={}", host, changedFiles.size(), deletedFiles.size());
+        if (remoteContent != null && changedFiles.isEmpty() && deletedFiles.isEmpty()) {
+            logger.info("package is up to date, host={}", host);
+            return;
+        }
+
+        if (!changedFiles.isEmpty()) mode.upload(ssh, localDir, REMOTE_PACKAGE_DIR, changedFiles);
+        for (int i = 0; i < deletedFiles.size(); i += DELETE_BATCH_SIZE) {
+            String files = deletedFiles.subList(i, Math.min(i + DELETE_BATCH_SIZE, deletedFiles.size())).stream()
+                                       .map(file -> "'" + file.replace("'", "'\\''") + "'")
+                                       .collect(Collectors.joining(" "));
+            ssh.executeCommands("cd " + REMOTE_PACKAGE_DIR + " && rm -f -- " + files);
+        }
+        ssh.put(manifest.text().getBytes(Charsets.UTF_8), manifestPath);
+    }
+
     private boolean indexMatches(String requestedIndex, int instanceInstance) {
         return requestedIndex == null || Integer.parseInt(requestedIndex) == instanceInstance;
     }
@@ -0,0 +1,147 @@
+package core.aws.task.linux;
+
+import core.aws.util.Charsets;
+import core.aws.util.Encodings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * sha256 of each file in package dir, in sha256sum format, so it can be checked on instance with "sha256sum -c",
+ * local hashes are cached by size and modified time, so only changed files are read again
+ *
+ * @author neo
+ */
+public final class PackageManifest {
+    static final String FILE_NAME = ".cmn-manifest";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageManifest.class);
+
+    // synchronized as upload tasks of different resources may run concurrently and share cache file
+    public static synchronized PackageManifest local(Path dir, Path cacheFile) throws IOException {
+        Map<String, CacheEntry> cache = loadCache(cacheFile);
+        Map<String, String> hashes = new TreeMap<>();
+        Set<String> visitedKeys = new HashSet<>();
+        int hashedFiles = 0;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String file = dir.relativize(path).toString().replace('\\', '/');    // convert windows file separator to linux one
+                if (FILE_NAME.equals(file)) continue;
+                String key = path.toAbsolutePath().toString();
+                visitedKeys.add(key);
+                long size = Files.size(path);
+                long modifiedTime = Files.getLastModifiedTime(path).toMillis();
+                CacheEntry entry = cache.get(key);
+                if (entry == null || entry.size != size || entry.modifiedTime != modifiedTime) {
+                    entry = new CacheEntry(size, modifiedTime, sha256(path));
+                    cache.put(key, entry);
+                    hashedFiles++;
+                }
+                hashes.put(file, entry.hash);
+            }
+        }
+        // drop files removed from dir, keep entries of other dirs sharing cache file
+        String dirPrefix = dir.toAbsolutePath().toString() + dir.getFileSystem().getSeparator();
+        int cacheSize = cache.size();
+        cache.keySet().removeIf(key -> key.startsWith(dirPrefix) && !visitedKeys.contains(key));
+        int prunedFiles = cacheSize - cache.size();
+        LOGGER.info("build package manifest, dir={}, files={}, hashedFiles={}, prunedFiles={}", dir, hashes.size(), hashedFiles, prunedFiles);
+        if (hashedFiles > 0 || prunedFiles > 0) saveCache(cacheFile, cache);
+        return new PackageManifest(hashes);
+    }
+
+    public static PackageManifest parse(String text) {
+        Map<String, String> hashes = new TreeMap<>();
+        for (String line : text.split("\n")) {
+            if (line.isEmpty()) continue;
+            int index = line.indexOf("  ");
+            if (index <= 0) continue;   // malformed line, e.g. manifest edited by hand, file is treated as not uploaded
+            hashes.put(line.substring(index + 2), line.substring(0, index));
+        }
+        return new PackageManifest(hashes);
+    }
+
+    private static Map<String, CacheEntry> loadCache(Path cacheFile) throws IOException {
+        Map<String, CacheEntry> cache = new TreeMap<>();
+        if (!Files.exists(cacheFile)) return cache;
+        for (String line : Files.readAllLines(cacheFile, Charsets.UTF_8)) {
+            String[] fields = line.split("\t", 4);  // size, modifiedTime, hash, path
+            if (fields.length == 4) cache.put(fields[3], new CacheEntry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+        }
+        return cache;
+    }
+
+    private static void saveCache(Path cacheFile, Map<String, CacheEntry> cache) throws IOException {
+        Files.createDirectories(cacheFile.getParent());
+        List<String> lines = new ArrayList<>(cache.size());
+        cache.forEach((path, entry) -> lines.add(entry.size + "\t" + entry.modifiedTime + "\t" + entry.hash + "\t" + path));
+        Files.write(cacheFile, lines, Charsets.UTF_8);
+    }
+
+    private static String sha256(Path path) {
+        try (InputStream input = Files.newInputStream(path)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int length;
+            while ((length = input.read(buffer)) >= 0) {
+                digest.update(buffer, 0, length);
+            }
+            return Encodings.hex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    final Map<String, String> hashes;     // relative path => sha256
+
+    PackageManifest(Map<String, String> hashes) {
+        this.hashes = hashes;
+    }
+
+    // files new or changed compared to remote manifest
+    public List<String> changedFiles(PackageManifest remote) {
+        return hashes.entrySet().stream()
+                     .filter(entry -> !entry.getValue().equals(remote.hashes.get(entry.getKey())))
+                     .map(Map.Entry::getKey)
+                     .collect(Collectors.toList());
+    }
+
+    // files in remote manifest but removed locally
+    public List<String> deletedFiles(PackageManifest remote) {
+        return remote.hashes.keySet().stream().filter(file -> !hashes.containsKey(file)).collect(Collectors.toList());
+    }
+
+    public String text() {
+        StringBuilder builder = new StringBuilder();
+        hashes.forEach((file, hash) -> builder.append(hash).append("  ").append(file).append('\n'));
+        return builder.toString();
+    }
+
+    private static final class CacheEntry {
+        final long size;
+        final long modifiedTime;
+        final String hash;
+
+        CacheEntry(long size, long modifiedTime, String hash) {
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package core.aws.task.linux;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
+import core.aws.util.Asserts;
+import core.aws.util.SSH;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * how to upload package dir, sftp puts file by file, tar streams whole dir in one channel which is much faster for many small files
+ *
+ * @author neo
+ */
+public enum UploadMode {
+    SFTP, TAR, TAR_GZ;
+
+    public static UploadMode parse(String value) {
+        if (value == null) return SFTP;
+        String name = value.replace('-', '_');
+        UploadMode mode = Arrays.stream(values()).filter(uploadMode -> uploadMode.name().equalsIgnoreCase(name)).findFirst().orElse(null);
+        return Asserts.notNull(mode, "upload-mode must be one of {}, value={}",
+            Arrays.stream(values()).map(uploadMode -> uploadMode.name().replace('_', '-').toLowerCase(Locale.US)).collect(Collectors.joining(", ")), value);
+    }
+
+    // full upload changes remote files without updating manifest of last delta upload, remove it, so next delta upload sends all files again
+    public void upload(SSH ssh, Path localDir, String remoteDir) throws JSchException, IOException, InterruptedException {
+        String manifestPath = remoteDir + "/" + PackageManifest.FILE_NAME;
+        ssh.executeCommands("rm -f -- '" + manifestPath.replace("'", "'\\''") + "'");
+        if (this == SFTP) ssh.uploadDir(localDir, remoteDir);
+        else ssh.uploadDirAsTar(localDir, remoteDir, this == TAR_GZ);
+    }
+
+    // files are relative paths under local dir
+    public void upload(SSH ssh, Path localDir, String remoteDir, Collection<String> files) throws JSchException, IOException, InterruptedException, SftpException {
+        if (this == SFTP) ssh.uploadFiles(localDir, remoteDir, files);
+        else ssh.uploadDirAsTar(localDir, remoteDir, this == TAR_GZ, files);
+    }
+}
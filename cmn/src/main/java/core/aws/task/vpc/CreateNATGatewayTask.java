@@ -10,7 +10,7 @@ import core.aws.workflow.Task;
 /**
  * @author neo
  */
-@Action("create-nat-gateway")
+@Action(value = "create-nat-gateway", cost = 120)
 public class CreateNATGatewayTask extends Task<NATGateway> {
     public CreateNATGatewayTask(NATGateway nat) {
         super(nat);
@@ -9,7 +9,7 @@ import core.aws.env.Context;
 import core.aws.resource.vpc.Subnet;
 import core.aws.resource.vpc.SubnetType;
 import core.aws.task.ec2.EC2TagHelper;
-import core.aws.util.Threads;
+import core.aws.util.Waiter;
 import core.aws.workflow.Action;
 import core.aws.workflow.Task;
 import org.slf4j.Logger;
@@ -22,7 +22,7 @@ import java.util.List;
 /**
  * @author neo
  */
-@Action("create-subnet")
+@Action(value = "create-subnet", cost = 15)
 public class CreateSubnetTask extends Task<Subnet> {
     private final Logger logger = LoggerFactory.getLogger(CreateSubnetTask.class);
 
@@ -43,23 +43,24 @@ public class CreateSubnetTask extends Task<Subnet> {
             subnetIds.add(subnet.getSubnetId());
         }
 
-        while (true) {
-            logger.info("wait until all subnets are available");
-            Threads.sleepRoughly(Duration.ofSeconds(10));
-            List<com.amazonaws.services.ec2.model.Subnet> subnets = AWS.getVpc().describeSubnets(subnetIds);
-            boolean allOK = subnets.stream().allMatch(subnet -> {
-                logger.info("subnet {} => {}", subnet.getSubnetId(), subnet.getState());
-                return "available".equals(subnet.getState());
+        logger.info("wait until all subnets are available");
+        List<com.amazonaws.services.ec2.model.Subnet> remoteSubnets = new Waiter("subnet-available")
+            .initialInterval(Duration.ofSeconds(1))
+            .maxInterval(Duration.ofSeconds(10))
+            .timeout(Duration.ofMinutes(5))
+            .get(() -> {
+                List<com.amazonaws.services.ec2.model.Subnet> subnets = AWS.getVpc().describeSubnets(subnetIds);
+                boolean allOK = subnets.stream().allMatch(subnet -> {
+                    logger.info("subnet {} => {}", subnet.getSubnetId(), subnet.getState());
+                    return "available".equals(subnet.getState());
+                });
+                return allOK ? subnets : null;
             });
-            if (allOK) {
-                resource.remoteSubnets.addAll(subnets);
-                break;
-            }
-        }
+        resource.remoteSubnets.addAll(remoteSubnets);
 
         if (resource.type == SubnetType.PUBLIC) {
             for (String subnetId : subnetIds) {
-                AWS.getVpc().ec2.modifySubnetAttribute(new ModifySubnetAttributeRequest()
+                AWS.getVpc().modifySubnetAttribute(new ModifySubnetAttributeRequest()
                     .withSubnetId(subnetId)
                     .withMapPublicIpOnLaunch(Boolean.TRUE));
             }
@@ -12,7 +12,7 @@ import core.aws.workflow.Task;
 /**
  * @author neo
  */
-@Action("create-vpc")
+@Action(value = "create-vpc", cost = 30)
 public class CreateVPCTask extends Task<VPC> {
     public CreateVPCTask(VPC vpc) {
         super(vpc);
@@ -9,7 +9,7 @@ import core.aws.workflow.Task;
 /**
  * @author neo
  */
-@Action("del-nat-gateway")
+@Action(value = "del-nat-gateway", cost = 90)
 public class DeleteNATGatewayTask extends Task<NATGateway> {
     public DeleteNATGatewayTask(NATGateway nat) {
         super(nat);
@@ -24,7 +24,7 @@ public class Runner<T> {
                 attempts++;
                 return task.call();
             } catch (Exception e) {
-                if (attempts >= maxAttempts || !predicate.test(e)) throw e;
+                if (attempts >= maxAttempts || Thread.currentThread().isInterrupted() || !predicate.test(e)) throw e;
                 logger.warn("failed to execute aws operation, retry soon", e);
                 Threads.sleepRoughly(retryInterval.multipliedBy((long) (Math.pow(2, attempts - 1))));
             }
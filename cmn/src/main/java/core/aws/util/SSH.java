@@ -3,7 +3,6 @@ package core.aws.util;
 import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpATTRS;
@@ -12,14 +11,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.Properties;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import static java.nio.file.Files.isDirectory;
 import static java.nio.file.Files.walkFileTree;
@@ -28,12 +32,22 @@ import static java.nio.file.Files.walkFileTree;
  * @author neo
  */
 public final class SSH implements Closeable {
+    private static final int TAIL_SIZE = 2048;
+    private static final long CLOSE_TIMEOUT = Duration.ofSeconds(30).toNanos();
+    private static final SSHSessionPool SESSION_POOL = new SSHSessionPool();
+
+    // disconnect all pooled sessions, e.g. after workflow finishes
+    public static void closeSessions() {
+        SESSION_POOL.closeAll();
+    }
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final Logger messageLogger = LoggerFactory.getLogger("message");
 
     private final String host;
     private final String user;
     private final Path privateKey;
+    private SSHSessionPool.Lease lease;
     private Session session;
 
     public SSH(String host, String user, Path privateKey) {
@@ -42,23 +56,37 @@ public final class SSH implements Closeable {
         this.privateKey = privateKey;
     }
 
+    // return session to pool, it stays open for next SSH to same host
     @Override
     public void close() {
-        session.disconnect();
+        if (lease != null) lease.release();
     }
 
     public void executeCommands(String... commands) throws JSchException, IOException, InterruptedException {
         connectIfNot();
         for (String command : commands) {
-            executeCommand(command);
+            CommandResult result = executeCommand(command, null);
+            if (result.exitStatus != 0) {
+                throw new JSchException("failed to run command, command=" + command + ", exitStatus=" + result.exitStatus + ", tail=" + result.tail);
+            }
         }
     }
 
-    public void put(Path localPath, String remotePath) throws JSchException, SftpException {
+    // run commands until one fails, write output to given stream instead of console, return result of last run command
+    public CommandResult executeCommands(OutputStream output, String... commands) throws JSchException, IOException, InterruptedException {
+        Asserts.isTrue(commands.length > 0, "commands must not be empty");
         connectIfNot();
-        ChannelSftp channel = (ChannelSftp) session.openChannel("sftp");
+        CommandResult result = null;
+        for (String command : commands) {
+            result = executeCommand(command, output);
+            if (result.exitStatus != 0) break;
+        }
+        return result;
+    }
+
+    public void put(Path localPath, String remotePath) throws JSchException, SftpException {
+        ChannelSftp channel = openSftpChannel();
         try {
-            channel.connect();
             logger.info("sftp put, from={}, to={}", localPath, remotePath);
             channel.put(new ByteArrayInputStream(Files.bytes(localPath)), remotePath);
         } finally {
@@ -66,14 +94,70 @@ public final class SSH implements Closeable {
         }
     }
 
+    public void put(byte[] content, String remotePath) throws JSchException, SftpException {
+        ChannelSftp channel = openSftpChannel();
+        try {
+            logger.info("sftp put, to={}, size={}", remotePath, content.length);
+            channel.put(new ByteArrayInputStream(content), remotePath);
+        } finally {
+            channel.disconnect();
+        }
+    }
+
+    // return null if remote file does not exist
+    public byte[] get(String remotePath) throws JSchException, SftpException {
+        ChannelSftp channel = openSftpChannel();
+        try {
+            logger.info("sftp get, from={}", remotePath);
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            channel.get(remotePath, content);
+            return content.toByteArray();
+        } catch (SftpException e) {
+            if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) return null;
+            throw e;
+        } finally {
+            channel.disconnect();
+        }
+    }
+
+    // copy given files under local dir to same relative paths under remote dir, paths use '/' separator
+    public void uploadFiles(Path localDir, String remoteDir, Collection<String> files) throws JSchException, SftpException {
+        ChannelSftp channel = openSftpChannel();
+        try {
+            Set<String> existingDirs = new HashSet<>();
+            for (String file : files) {
+                String destination = remoteDir + "/" + file;
+                mkdirs(channel, destination.substring(0, destination.lastIndexOf('/')), existingDirs);
+                logger.info("sftp put, source={}, destination={}", localDir.resolve(file), destination);
+                channel.put(localDir.resolve(file).toAbsolutePath().toString(), destination);
+            }
+        } finally {
+            channel.disconnect();
+        }
+    }
+
+    private void mkdirs(ChannelSftp channel, String dir, Set<String> existingDirs) throws SftpException {
+        if (dir.isEmpty() || existingDirs.contains(dir)) return;
+        try {
+            if (channel.stat(dir).isDir()) {
+                existingDirs.add(dir);
+                return;
+            }
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) throw e;
+        }
+        mkdirs(channel, dir.substring(0, Math.max(0, dir.lastIndexOf('/'))), existingDirs);
+        logger.info("sftp mkdir, remoteDir={}", dir);
+        channel.mkdir(dir);
+        existingDirs.add(dir);
+    }
+
     // copy all files recursively from local dir to remote dir, e.g. copy local env/packages to /opt/packages
     public void uploadDir(final Path localDir, final String remoteDir) {
         Asserts.isTrue(isDirectory(localDir), "localDir must be directory, localDir={}", localDir);
         ChannelSftp channel = null;
         try {
-            connectIfNot();
-            channel = (ChannelSftp) session.openChannel("sftp");
-            channel.connect();
+            channel = openSftpChannel();
             walkFileTree(localDir, new PutFileVisitor(localDir, remoteDir, channel));
         } catch (JSchException | IOException e) {
             throw new SSHException(e);
@@ -83,53 +167,206 @@ public final class SSH implements Closeable {
         }
     }
 
-    private void executeCommand(String command) throws JSchException, IOException, InterruptedException {
-        connectIfNot();
-        Channel channel = session.openChannel("exec");
+    // stream local dir as tar into remote tar process, one channel for whole dir instead of round trips per file and directory
+    public void uploadDirAsTar(Path localDir, String remoteDir, boolean gzip) throws JSchException, IOException, InterruptedException {
+        uploadDirAsTar(localDir, remoteDir, gzip, null);
+    }
+
+    // only stream given files under local dir, null means all
+    public void uploadDirAsTar(Path localDir, String remoteDir, boolean gzip, Collection<String> files) throws JSchException, IOException, InterruptedException {
+        Asserts.isTrue(isDirectory(localDir), "localDir must be directory, localDir={}", localDir);
+        try {
+            uploadTar(localDir, remoteDir, gzip, files);
+        } catch (ChannelOpenException e) {
+            reconnect(e);
+            uploadTar(localDir, remoteDir, gzip, files);
+        }
+    }
+
+    private void uploadTar(Path localDir, String remoteDir, boolean gzip, Collection<String> files) throws JSchException, IOException, InterruptedException {
+        ChannelExec channel = (ChannelExec) openChannel("exec");
+        try {
+            String dir = quote(remoteDir);
+            String command = "mkdir -p -- " + dir + " && tar x" + (gzip ? "z" : "") + "f - -C " + dir;
+            channel.setCommand(command);    // no pty, it would alter binary stream
+            ByteArrayOutputStream error = new ByteArrayOutputStream();
+            channel.setErrStream(error, true);
+            InputStream in = channel.getInputStream();
+            OutputStream out = channel.getOutputStream();
+            logger.info("ssh upload dir as tar, localDir={}, remoteDir={}, gzip={}", localDir, remoteDir, gzip);
+            connectChannel(channel);
+
+            try {
+                new Tarball(localDir).archive(out, gzip, files);   // closing stream sends eof, then remote tar finishes and exits
+            } catch (IOException e) {
+                if (!channel.isClosed() && !channel.isEOF()) throw e;   // failed to read local file
+                // remote mkdir or tar exited before whole tar is written, writing fails with "channel is broken", report remote error instead
+                waitUntilClosed(channel, command);
+                throw new JSchException("failed to extract tar, command=" + command + ", exitStatus=" + channel.getExitStatus() + ", error=" + new String(error.toByteArray(), Charsets.UTF_8), e);
+            }
+            while (in.read() >= 0) {
+                // drain output, tar x does not print without v
+            }
+            waitUntilClosed(channel, command);
+
+            if (channel.getExitStatus() != 0) {
+                throw new JSchException("failed to extract tar, command=" + command + ", exitStatus=" + channel.getExitStatus() + ", error=" + new String(error.toByteArray(), Charsets.UTF_8));
+            }
+        } finally {
+            channel.disconnect();
+        }
+    }
+
+    // single quote for shell, e.g. path with space
+    static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    private CommandResult executeCommand(String command, OutputStream output) throws JSchException, IOException, InterruptedException {
+        try {
+            return executeCommandOnce(command, output);
+        } catch (ChannelOpenException e) {
+            reconnect(e);
+            return executeCommandOnce(command, output);
+        }
+    }
+
+    private CommandResult executeCommandOnce(String command, OutputStream output) throws JSchException, IOException, InterruptedException {
+        Channel channel = openChannel("exec");
         try {
             ((ChannelExec) channel).setCommand(command);
-            ((ChannelExec) channel).setErrStream(System.err);
+            if (output != null) ((ChannelExec) channel).setErrStream(output, true);
+            else ((ChannelExec) channel).setErrStream(System.err);
             ((ChannelExec) channel).setPty(true);
             ((ChannelExec) channel).setPtyType("vt100");
             channel.setInputStream(null);
             channel.setOutputStream(System.out);
             InputStream in = channel.getInputStream();
             logger.info("ssh exec command => {}", command);
-            channel.connect();
+            connectChannel(channel);
 
-            byte[] buffer = new byte[1024];
-            while (true) {
-                while (in.available() > 0) {
-                    int i = in.read(buffer, 0, 1024);
-                    if (i < 0) break;
-                    messageLogger.info(new String(buffer, 0, i, Charsets.UTF_8));
-                }
-                if (channel.isClosed()) {
-                    logger.info("ssh exec exit status => " + channel.getExitStatus());
-                    break;
-                }
-
-                Thread.sleep(1000);
+            // blocking read returns as soon as output arrives, and returns -1 once remote closes channel
+            Tail tail = new Tail(TAIL_SIZE);
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) >= 0) {
+                tail.write(buffer, length);
+                if (output != null) output.write(buffer, 0, length);
+                else messageLogger.info(new String(buffer, 0, length, Charsets.UTF_8));
             }
+            waitUntilClosed(channel, command);
 
-            if (channel.getExitStatus() != 0) {
-                throw new JSchException("failed to run command, command=" + command);
-            }
+            CommandResult result = new CommandResult(channel.getExitStatus(), tail.toString());
+            logger.info("ssh exec exit status => {}", result.exitStatus);
+            return result;
         } finally {
             channel.disconnect();
         }
     }
 
+    // called after eof, exit status comes with close right after it, jsch has no close callback, so poll with deadline in case close never comes
+    private void waitUntilClosed(Channel channel, String command) throws InterruptedException, JSchException {
+        long deadline = System.nanoTime() + CLOSE_TIMEOUT;
+        while (!channel.isClosed()) {
+            if (System.nanoTime() - deadline > 0)
+                throw new JSchException("channel is not closed after eof, host=" + host + ", command=" + command + ", timeout=" + Duration.ofNanos(CLOSE_TIMEOUT));
+            Thread.sleep(5);
+        }
+    }
+
     private void connectIfNot() throws JSchException {
         if (session == null) {
-            JSch jsch = new JSch();
-            jsch.addIdentity(privateKey.toAbsolutePath().toString());
-            session = jsch.getSession(user, host, 22);
-            Properties config = new Properties();
-            config.setProperty("StrictHostKeyChecking", "no");
-            session.setConfig(config);
-            logger.info("ssh connect to {}", host);
-            session.connect();
+            lease = SESSION_POOL.acquire(host, user, privateKey);
+            session = lease.session;
+        }
+    }
+
+    private ChannelSftp openSftpChannel() throws JSchException {
+        try {
+            return openSftpChannelOnce();
+        } catch (ChannelOpenException e) {
+            reconnect(e);
+            return openSftpChannelOnce();
+        }
+    }
+
+    private ChannelSftp openSftpChannelOnce() throws JSchException {
+        ChannelSftp channel = (ChannelSftp) openChannel("sftp");
+        connectChannel(channel);
+        return channel;
+    }
+
+    private Channel openChannel(String type) throws JSchException {
+        connectIfNot();
+        try {
+            return session.openChannel(type);
+        } catch (JSchException e) {
+            throw new ChannelOpenException(e);
+        }
+    }
+
+    private void connectChannel(Channel channel) throws ChannelOpenException {
+        try {
+            channel.connect();
+        } catch (JSchException e) {
+            channel.disconnect();
+            throw new ChannelOpenException(e);
+        }
+    }
+
+    // pooled session still looks connected until keep alive fails, e.g. instance rebooted or sshd restarted, drop it and connect new session once
+    private void reconnect(ChannelOpenException e) throws JSchException {
+        logger.warn("failed to open ssh channel, reconnect, host={}, error={}", host, e.getMessage());
+        lease.invalidate();
+        lease = null;
+        session = null;
+        connectIfNot();
+    }
+
+    // nothing is sent on channel yet, so it is safe to retry on new session
+    private static final class ChannelOpenException extends JSchException {
+        private static final long serialVersionUID = -2715624936251283340L;
+
+        ChannelOpenException(JSchException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    public static final class CommandResult {
+        public final int exitStatus;
+        public final String tail;   // last part of output, to report failure without keeping whole output
+
+        CommandResult(int exitStatus, String tail) {
+            this.exitStatus = exitStatus;
+            this.tail = tail;
+        }
+    }
+
+    static final class Tail {
+        private final byte[] buffer;
+        private int position;
+        private boolean full;
+
+        Tail(int size) {
+            buffer = new byte[size];
+        }
+
+        void write(byte[] bytes, int length) {
+            int offset = Math.max(0, length - buffer.length);
+            for (int i = offset; i < length; i++) {
+                buffer[position] = bytes[i];
+                position = (position + 1) % buffer.length;
+                if (position == 0) full = true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (!full) return new String(buffer, 0, position, Charsets.UTF_8);
+            byte[] bytes = new byte[buffer.length];
+            System.arraycopy(buffer, position, bytes, 0, buffer.length - position);
+            System.arraycopy(buffer, 0, bytes, buffer.length - position, position);
+            return new String(bytes, Charsets.UTF_8);
         }
     }
 
@@ -0,0 +1,213 @@
+package core.aws.util;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * share ssh sessions by host, user and key within process, so upload/provision/exec on same instance only do key exchange once,
+ * each SSH holds one channel slot of session, sshd allows 10 channels per session by default (MaxSessions)
+ *
+ * @author neo
+ */
+final class SSHSessionPool {
+    static final int MAX_SESSIONS_PER_HOST = 2;
+    static final int MAX_CHANNELS_PER_SESSION = 8;
+    private static final int KEEP_ALIVE_INTERVAL = (int) Duration.ofSeconds(30).toMillis();
+
+    private final Logger logger = LoggerFactory.getLogger(SSHSessionPool.class);
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private final Connector connector;
+    private final long acquireTimeout;
+    private final long idleTimeout;
+
+    SSHSessionPool() {
+        connector = this::connect;
+        acquireTimeout = Duration.ofMinutes(10).toNanos();
+        idleTimeout = Duration.ofMinutes(2).toNanos();
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ssh-session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdleSessions, 30, 30, TimeUnit.SECONDS);
+    }
+
+    SSHSessionPool(Connector connector, Duration acquireTimeout, Duration idleTimeout) {
+        this.connector = connector;
+        this.acquireTimeout = acquireTimeout.toNanos();
+        this.idleTimeout = idleTimeout.toNanos();
+    }
+
+    Lease acquire(String host, String user, Path privateKey) throws JSchException {
+        Host pooledHost = hosts.computeIfAbsent(user + "@" + host + ":" + privateKey.toAbsolutePath(), key -> new Host(host, user, privateKey));
+        try {
+            return pooledHost.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("acquire ssh session is interrupted", e);
+        }
+    }
+
+    void evictIdleSessions() {
+        hosts.values().forEach(host -> host.evict(false));
+    }
+
+    void closeAll() {
+        hosts.values().forEach(host -> host.evict(true));
+    }
+
+    private Session connect(String host, String user, Path privateKey) throws JSchException {
+        JSch jsch = new JSch();
+        jsch.addIdentity(privateKey.toAbsolutePath().toString());
+        Session session = jsch.getSession(user, host, 22);
+        Properties config = new Properties();
+        config.setProperty("StrictHostKeyChecking", "no");
+        session.setConfig(config);
+        session.setServerAliveInterval(KEEP_ALIVE_INTERVAL);   // keep idle pooled session from being dropped by nat or sshd
+        session.setDaemonThread(true);      // pooled session should not block process exit
+        logger.info("ssh connect to {}", host);
+        session.connect();
+        return session;
+    }
+
+    @FunctionalInterface
+    interface Connector {
+        Session connect(String host, String user, Path privateKey) throws JSchException;
+    }
+
+    final class Lease {
+        final Session session;
+        private final Host host;
+        private final PooledSession pooledSession;
+        private boolean released;
+
+        Lease(Host host, PooledSession pooledSession) {
+            this.host = host;
+            this.pooledSession = pooledSession;
+            session = pooledSession.session;
+        }
+
+        void release() {
+            if (released) return;
+            released = true;
+            host.release(pooledSession);
+        }
+
+        // session looks connected but can not open channel, e.g. instance rebooted, remove it from pool, so it won't be reused
+        void invalidate() {
+            if (released) return;
+            released = true;
+            host.invalidate(pooledSession);
+        }
+    }
+
+    private final class Host {
+        final String host;
+        final String user;
+        final Path privateKey;
+        final List<PooledSession> sessions = new ArrayList<>();
+        int connecting;     // slots reserved by callers doing handshake
+
+        Host(String host, String user, Path privateKey) {
+            this.host = host;
+            this.user = user;
+            this.privateKey = privateKey;
+        }
+
+        // reserve slot under host lock and do handshake outside of it, so callers can still reuse connected sessions meanwhile
+        Lease acquire() throws JSchException, InterruptedException {
+            synchronized (this) {
+                long deadline = System.nanoTime() + acquireTimeout;
+                while (true) {
+                    sessions.removeIf(pooledSession -> !pooledSession.session.isConnected());
+                    for (PooledSession pooledSession : sessions) {
+                        if (pooledSession.users < MAX_CHANNELS_PER_SESSION) {
+                            pooledSession.users++;
+                            logger.info("reuse ssh session, host={}, users={}", host, pooledSession.users);
+                            return new Lease(this, pooledSession);
+                        }
+                    }
+                    if (sessions.size() + connecting < MAX_SESSIONS_PER_HOST) {
+                        connecting++;
+                        break;
+                    }
+                    long remainingTime = deadline - System.nanoTime();
+                    if (remainingTime <= 0) throw new JSchException("timeout to acquire ssh session, host=" + host + ", timeout=" + Duration.ofNanos(acquireTimeout));
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingTime);
+                }
+            }
+
+            Session session;
+            try {
+                session = connector.connect(host, user, privateKey);
+            } catch (JSchException | RuntimeException e) {
+                synchronized (this) {
+                    connecting--;
+                    notifyAll();    // let waiting caller take the slot
+                }
+                throw e;
+            }
+            synchronized (this) {
+                connecting--;
+                PooledSession pooledSession = new PooledSession(session);
+                pooledSession.users++;
+                sessions.add(pooledSession);
+                notifyAll();    // waiting callers can share new session
+                return new Lease(this, pooledSession);
+            }
+        }
+
+        synchronized void release(PooledSession pooledSession) {
+            pooledSession.users--;
+            pooledSession.lastUsedTime = System.nanoTime();
+            notifyAll();
+        }
+
+        synchronized void invalidate(PooledSession pooledSession) {
+            pooledSession.users--;
+            if (sessions.remove(pooledSession)) {
+                logger.info("close broken ssh session, host={}", host);
+                pooledSession.session.disconnect();
+            }
+            notifyAll();
+        }
+
+        synchronized void evict(boolean all) {
+            long now = System.nanoTime();
+            Iterator<PooledSession> iterator = sessions.iterator();
+            while (iterator.hasNext()) {
+                PooledSession pooledSession = iterator.next();
+                if (all || pooledSession.users == 0 && now - pooledSession.lastUsedTime > idleTimeout) {
+                    logger.info("close ssh session, host={}", host);
+                    pooledSession.session.disconnect();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static final class PooledSession {
+        final Session session;
+        int users;
+        long lastUsedTime = System.nanoTime();
+
+        PooledSession(Session session) {
+            this.session = session;
+        }
+    }
+}
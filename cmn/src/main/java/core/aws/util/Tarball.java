@@ -6,17 +6,20 @@ import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.Collection;
 import java.nio.file.Path;
 import java.util.zip.GZIPOutputStream;
 
 import static java.nio.file.Files.isDirectory;
-import static java.nio.file.Files.readAllBytes;
 
 /**
  * @author neo
  */
 public final class Tarball {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final Path sourceDir;
     private final URI basePath;
 
@@ -26,8 +29,26 @@ public final class Tarball {
     }
 
     public void archive(File outputFile) throws IOException {
-        try (TarArchiveOutputStream output = new TarArchiveOutputStream(new GZIPOutputStream(new BufferedOutputStream(java.nio.file.Files.newOutputStream(outputFile.toPath()))))) {
-            archive(sourceDir, output);
+        archive(java.nio.file.Files.newOutputStream(outputFile.toPath()), true);
+    }
+
+    // write tar to stream without temp file, e.g. pipe into remote tar via ssh, stream is closed when finished
+    public void archive(OutputStream stream, boolean gzip) throws IOException {
+        archive(stream, gzip, null);
+    }
+
+    // only archive given files, paths are relative to source dir with '/' separator, null means all
+    public void archive(OutputStream stream, boolean gzip, Collection<String> files) throws IOException {
+        OutputStream bufferedStream = new BufferedOutputStream(stream, BUFFER_SIZE);
+        try (TarArchiveOutputStream output = new TarArchiveOutputStream(gzip ? new GZIPOutputStream(bufferedStream, BUFFER_SIZE) : bufferedStream)) {
+            output.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);     // package dir may have deep paths over 100 chars
+            if (files == null) {
+                archive(sourceDir, output);
+            } else {
+                for (String file : files) {
+                    archiveFile(sourceDir.resolve(file), file, output);
+                }
+            }
             output.flush();
         }
     }
@@ -36,13 +57,16 @@ public final class Tarball {
         if (isDirectory(path)) {
             archiveFolder(path, output);
         } else {
-            TarArchiveEntry entry = new TarArchiveEntry(path.toFile(), basePath.relativize(path.toUri()).getPath());   // must covert path to URI to make it compatible with Linux
-            output.putArchiveEntry(entry);
-            output.write(readAllBytes(path));
-            output.closeArchiveEntry();
+            archiveFile(path, basePath.relativize(path.toUri()).getPath(), output);   // must covert path to URI to make it compatible with Linux
         }
     }
 
+    private void archiveFile(Path path, String name, TarArchiveOutputStream output) throws IOException {
+        output.putArchiveEntry(new TarArchiveEntry(path.toFile(), name));
+        java.nio.file.Files.copy(path, output);
+        output.closeArchiveEntry();
+    }
+
     private void archiveFolder(Path path, TarArchiveOutputStream output) throws IOException {
         File[] files = path.toFile().listFiles();
         if (files != null) {
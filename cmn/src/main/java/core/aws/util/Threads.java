@@ -4,22 +4,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * @author neo
  */
 public final class Threads {
     private static final Logger LOGGER = LoggerFactory.getLogger(Threads.class);
+    private static final ThreadLocal<List<Sleep>> SLEEPS = new ThreadLocal<>();     // sleeps of current workflow task, exported to trace
 
+    // throws IllegalStateException if interrupted, e.g. task cancelled by fail fast, so caller stops instead of going on to next aws call
     public static void sleepRoughly(Duration duration) {
         long milliseconds = duration.toMillis();
         double times = Randoms.number(0.8, 1.2); // +/-20% random
         long sleepTime = (long) (milliseconds * times);
         LOGGER.info("sleep {} ms", sleepTime);
+        long startTime = System.nanoTime();
         try {
             Thread.sleep(sleepTime);
         } catch (InterruptedException e) {
-            LOGGER.info("sleep is interrupted");
+            Thread.currentThread().interrupt();     // keep interrupted status, so workflow can cancel polling tasks
+            throw new IllegalStateException("sleep is interrupted", e);
+        } finally {
+            List<Sleep> sleeps = SLEEPS.get();
+            if (sleeps != null) sleeps.add(new Sleep(startTime, System.nanoTime()));
+        }
+    }
+
+    // record sleeps of current thread into given list, pass null to stop
+    public static void trackSleeps(List<Sleep> sleeps) {
+        if (sleeps == null) SLEEPS.remove();
+        else SLEEPS.set(sleeps);
+    }
+
+    public static final class Sleep {
+        public final long startTime;    // in System.nanoTime()
+        public final long endTime;
+
+        Sleep(long startTime, long endTime) {
+            this.startTime = startTime;
+            this.endTime = endTime;
         }
     }
 }
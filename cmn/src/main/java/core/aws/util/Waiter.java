@@ -0,0 +1,144 @@
+package core.aws.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * poll aws until resource reaches expected state, starts with short interval and backs off to max interval,
+ * e.g. new Waiter("vpc-available").initialInterval(Duration.ofSeconds(2)).maxInterval(Duration.ofSeconds(20)).timeout(Duration.ofMinutes(5)).until(() -> ...)
+ *
+ * @author neo
+ */
+public class Waiter {
+    private static final Logger MESSAGE_LOGGER = LoggerFactory.getLogger("message");
+    private static final Map<String, Metric> METRICS = new ConcurrentHashMap<>();
+
+    public static void printSummary() {
+        if (METRICS.isEmpty()) return;
+        List<Metric> rows = new ArrayList<>(METRICS.values());
+        rows.sort(Comparator.comparingLong((Metric row) -> row.totalElapsed.get()).reversed());
+        int width = Math.max("waiter".length(), rows.stream().mapToInt(row -> row.name.length()).max().orElse(0));
+        String format = "%-" + width + "s %6s %6s %8s %8s %10s %8s%n";
+        MESSAGE_LOGGER.info("\nwaiters:\n");
+        MESSAGE_LOGGER.info(String.format(format, "waiter", "waits", "polls", "timeouts", "failures", "total(s)", "max(s)"));
+        for (Metric row : rows) {
+            MESSAGE_LOGGER.info(String.format(format, row.name, row.waits.get(), row.polls.get(), row.timeouts.get(), row.failures.get(),
+                Duration.ofNanos(row.totalElapsed.get()).getSeconds(), Duration.ofNanos(row.maxElapsed.get()).getSeconds()));
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(Waiter.class);
+    private final String name;
+    Duration initialInterval = Duration.ofSeconds(2);
+    Duration maxInterval = Duration.ofSeconds(30);
+    Duration timeout = Duration.ofMinutes(30);
+    double backoff = 2;
+
+    public Waiter(String name) {
+        this.name = name;
+    }
+
+    public Waiter initialInterval(Duration initialInterval) {
+        this.initialInterval = initialInterval;
+        return this;
+    }
+
+    public Waiter maxInterval(Duration maxInterval) {
+        this.maxInterval = maxInterval;
+        return this;
+    }
+
+    public Waiter timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public Waiter backoff(double backoff) {
+        this.backoff = backoff;
+        return this;
+    }
+
+    public void until(BooleanSupplier condition) {
+        get(() -> condition.getAsBoolean() ? Boolean.TRUE : null);
+    }
+
+    // poll until it returns non null result, poll can throw exception to stop waiting on failed state
+    public <T> T get(Supplier<T> poll) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + timeout.toNanos();
+        Duration interval = initialInterval;
+        int polls = 0;
+        Outcome outcome = Outcome.FAILED;
+        try {
+            while (true) {
+                Threads.sleepRoughly(interval);
+                polls++;
+                T result = poll.get();
+                if (result != null) {
+                    outcome = Outcome.DONE;
+                    return result;
+                }
+                if (System.nanoTime() >= deadline) {
+                    outcome = Outcome.TIMEOUT;
+                    throw new WaitTimeoutException(Strings.format("waited too long, please check aws console, waiter={}, timeout={}", name, timeout));
+                }
+                interval = next(interval);
+            }
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            logger.info("wait finished, waiter={}, outcome={}, polls={}, elapsed={}", name, outcome, polls, Duration.ofNanos(elapsed));
+            METRICS.computeIfAbsent(name, Metric::new).record(outcome, polls, elapsed);
+        }
+    }
+
+    private Duration next(Duration interval) {
+        long next = (long) (interval.toMillis() * backoff);
+        return next >= maxInterval.toMillis() ? maxInterval : Duration.ofMillis(next);
+    }
+
+    private enum Outcome {
+        DONE, TIMEOUT, FAILED
+    }
+
+    public static class WaitTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 6405853617829264816L;
+
+        WaitTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    static final class Metric {
+        final String name;
+        final AtomicInteger waits = new AtomicInteger();
+        final AtomicInteger polls = new AtomicInteger();
+        final AtomicInteger timeouts = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong totalElapsed = new AtomicLong();
+        final AtomicLong maxElapsed = new AtomicLong();
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        void record(Outcome outcome, int polls, long elapsed) {
+            waits.incrementAndGet();
+            this.polls.addAndGet(polls);
+            if (outcome == Outcome.TIMEOUT) timeouts.incrementAndGet();
+            if (outcome == Outcome.FAILED) failures.incrementAndGet();
+            totalElapsed.addAndGet(elapsed);
+            maxElapsed.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+}
@@ -12,4 +12,7 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Action {
     String value();
+
+    // estimated seconds to finish, workflow runs tasks on the longest remaining path first
+    int cost() default 1;
 }
@@ -0,0 +1,47 @@
+package core.aws.workflow;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author neo
+ */
+final class CriticalPath {
+    private static final Comparator<Task> END_TIME = Comparator.comparingLong(task -> task.endTime);
+
+    // priority = cost + max priority of dependents, i.e. the estimated seconds of longest path starting from the task
+    static void calculatePriorities(Tasks tasks) {
+        Set<Task> calculatedTasks = new HashSet<>();
+        tasks.stream().forEach(task -> priority(task, calculatedTasks));
+    }
+
+    private static long priority(Task<?> task, Set<Task> calculatedTasks) {
+        if (calculatedTasks.contains(task)) return task.priority;
+        long maxDependentPriority = 0;
+        for (Task dependent : task.backwardDependencies) {
+            maxDependentPriority = Math.max(maxDependentPriority, priority(dependent, calculatedTasks));
+        }
+        task.priority = task.cost() + maxDependentPriority;
+        calculatedTasks.add(task);
+        return task.priority;
+    }
+
+    // walk back from the last finished task thru the dependency finished last, that chain determined the elapsed time of workflow
+    @SuppressWarnings("unchecked")
+    static List<Task> actualPath(Tasks tasks) {
+        LinkedList<Task> path = new LinkedList<>();
+        Task current = tasks.stream().filter(CriticalPath::finished).max(END_TIME).orElse(null);
+        while (current != null) {
+            path.addFirst(current);
+            current = ((Set<Task>) current.dependencies).stream().filter(CriticalPath::finished).max(END_TIME).orElse(null);
+        }
+        return path;
+    }
+
+    private static boolean finished(Task task) {
+        return task.endTime > 0;
+    }
+}
@@ -0,0 +1,10 @@
+package core.aws.workflow;
+
+/**
+ * @author neo
+ */
+public enum FailFast {
+    OFF,        // wait for all running tasks, dependents of failed task are skipped
+    SUBGRAPH,   // also cancel running tasks which skipped dependents of failed task wait for, other branches keep running
+    ALL         // cancel all remaining tasks
+}
@@ -0,0 +1,107 @@
+package core.aws.workflow;
+
+import core.aws.util.Asserts;
+import core.aws.util.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * append only log of task results, one line per finished task, used to resume failed or interrupted workflow
+ *
+ * @author neo
+ */
+final class Journal {
+    private final Logger logger = LoggerFactory.getLogger(Journal.class);
+    private final Path path;
+    private BufferedWriter writer;
+
+    Journal(Path path) {
+        this.path = path;
+    }
+
+    // tasks done in previous run, task name appears more than once can not be matched, so it's excluded
+    Map<String, JournalEntry> doneTasks(String run) throws IOException {
+        Asserts.isTrue(Files.exists(path), "can not find workflow journal to resume, path={}", path);
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        Asserts.isTrue(!lines.isEmpty(), "workflow journal is empty, path={}", path);
+        JournalEntry header = JSON.fromJSON(JournalEntry.class, lines.get(0));
+        Asserts.equals(header.run, run, "workflow journal was written by different goal, journal={}, current={}", header.run, run);
+
+        Map<String, JournalEntry> doneTasks = new HashMap<>();
+        Set<String> duplicatedTasks = new HashSet<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) continue;
+            JournalEntry entry;
+            try {
+                entry = JSON.fromJSON(JournalEntry.class, line);
+            } catch (UncheckedIOException e) {
+                logger.warn("ignore broken journal line, it could be written while process was killed, line={}", line);
+                continue;
+            }
+            if (entry.state != TaskState.DONE) continue;
+            if (doneTasks.put(entry.task, entry) != null) duplicatedTasks.add(entry.task);
+        }
+        duplicatedTasks.forEach(doneTasks::remove);
+        logger.info("load workflow journal, path={}, doneTasks={}", path, doneTasks.size());
+        return doneTasks;
+    }
+
+    void open(String run, boolean resume) throws IOException {
+        Files.createDirectories(path.getParent());
+        if (resume) {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } else {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            JournalEntry header = new JournalEntry();
+            header.run = run;
+            write(header);
+        }
+    }
+
+    void append(String task, TaskState state, Map<String, List<String>> outputs) {
+        JournalEntry entry = new JournalEntry();
+        entry.task = task;
+        entry.state = state;
+        entry.outputs = outputs;
+        write(entry);
+    }
+
+    private synchronized void write(JournalEntry entry) {
+        try {
+            writer.write(JSON.toJSON(entry));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void close(boolean completed) throws IOException {
+        writer.close();
+        if (completed) {
+            Files.delete(path);
+        } else {
+            logger.info("workflow journal is kept, rerun with --resume=true to skip done tasks, path={}", path);
+        }
+    }
+
+    static final class JournalEntry {
+        public String run;      // only in first line, goal and params of the run
+        public String task;
+        public TaskState state;
+        public Map<String, List<String>> outputs;
+    }
+}
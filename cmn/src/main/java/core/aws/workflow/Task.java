@@ -1,14 +1,18 @@
 package core.aws.workflow;
 
+import core.aws.client.AWS;
 import core.aws.env.Context;
 import core.aws.env.Param;
 import core.aws.resource.Resource;
 import core.aws.util.Asserts;
+import core.aws.util.Threads;
 import core.aws.util.ToStringHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
@@ -22,8 +26,15 @@ public abstract class Task<T extends Resource> implements Callable<Void> {
     private final Logger logger = LoggerFactory.getLogger(Task.class);
     private final Logger messageLogger = LoggerFactory.getLogger("message");
     private Context context;
-    private Workflow workflow;
+    private volatile Workflow workflow;
     private volatile TaskState state = TaskState.NEW;
+    private volatile Thread thread;         // running thread, to be interrupted when workflow cancels task
+    private volatile boolean cancelled;
+    long priority;      // estimated seconds of longest remaining path, calculated by workflow before run
+    volatile long scheduledTime;
+    volatile long startTime;
+    volatile long endTime;
+    final List<Threads.Sleep> sleeps = new ArrayList<>();   // only accessed by running thread, read after workflow finished
 
     public Task(T resource) {
         this.resource = resource;
@@ -51,6 +62,33 @@ public abstract class Task<T extends Resource> implements Callable<Void> {
         return state == TaskState.DONE;
     }
 
+    TaskState state() {
+        return state;
+    }
+
+    // skip if not scheduled yet, otherwise interrupt running task, queued task will be cancelled once it's picked up
+    void abort() {
+        synchronized (this) {
+            if (state == TaskState.NEW) {
+                state = TaskState.SKIPPED;
+            } else if (state == TaskState.SCHEDULED) {
+                cancelled = true;
+                if (thread != null) thread.interrupt();
+            }
+        }
+    }
+
+    void resume() {
+        logger.info("skip task done in previous run, task={}", this);
+        state = TaskState.DONE;
+    }
+
+    void skip() {
+        synchronized (this) {
+            if (state == TaskState.NEW) state = TaskState.SKIPPED;
+        }
+    }
+
     void runIfReady() {
         synchronized (this) {
             if (readyToRun()) {
@@ -74,9 +112,22 @@ public abstract class Task<T extends Resource> implements Callable<Void> {
 
     @Override
     public final Void call() {
+        workflow.started(this);
         try {
             Thread thread = Thread.currentThread();
-            thread.setName(action() + ":" + resource.id + ":" + thread.getId());
+            thread.setName(name() + ":" + thread.getId());
+            synchronized (this) {
+                this.thread = thread;
+            }
+            context.trackTaskOutputs();
+            Threads.trackSleeps(sleeps);
+            AWS.getApiMetrics().trackCaller(name());
+            if (cancelled) {
+                logger.info("task is cancelled before start, task={}", this);
+                workflow.record(this, TaskState.CANCELLED);
+                state = TaskState.CANCELLED;
+                return null;
+            }
 
             if ("true".equals(context.param(Param.DRY_RUN))) {
                 messageLogger.info("dry-run: {}\n", this);
@@ -85,21 +136,48 @@ public abstract class Task<T extends Resource> implements Callable<Void> {
                 execute(context);
             }
 
+            workflow.record(this, TaskState.DONE);
             state = TaskState.DONE;
             backwardDependencies.forEach(Task::runIfReady);
         } catch (Throwable e) {
-            logger.error("failed to execute task, error={}", e.getMessage(), e);
-            state = TaskState.FAILED;
+            if (cancelled) {
+                logger.info("task is cancelled, task={}, error={}", this, e.getMessage());
+                workflow.record(this, TaskState.CANCELLED);
+                state = TaskState.CANCELLED;
+            } else {
+                logger.error("failed to execute task, error={}", e.getMessage(), e);
+                workflow.record(this, TaskState.FAILED);
+                state = TaskState.FAILED;
+                workflow.failed(this);
+            }
+        } finally {
+            Threads.trackSleeps(null);
+            AWS.getApiMetrics().trackCaller(null);
+            synchronized (this) {
+                thread = null;
+                Thread.interrupted();   // clear interrupted status before thread is reused by other task
+            }
+            workflow.finished(this);
         }
         return null;
     }
 
+    String name() {
+        return action() + ":" + resource.id;
+    }
+
     private String action() {
         Action action = getClass().getDeclaredAnnotation(Action.class);
         if (action == null) return getClass().getSimpleName();
         return action.value();
     }
 
+    int cost() {
+        Action action = getClass().getDeclaredAnnotation(Action.class);
+        if (action == null) return 1;
+        return action.cost();
+    }
+
     @Override
     public String toString() {
         return new ToStringHelper(this)
@@ -4,5 +4,5 @@ package core.aws.workflow;
  * @author neo
  */
 public enum TaskState {
-    NEW, SCHEDULED, DONE, FAILED
+    NEW, SCHEDULED, DONE, FAILED, SKIPPED, CANCELLED
 }
@@ -1,8 +1,15 @@
 package core.aws.workflow;
 
 import core.aws.env.Context;
+import core.aws.resource.Resource;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
@@ -12,9 +19,16 @@ import java.util.stream.Stream;
  */
 public final class Tasks {
     private final Set<Task> tasks = new HashSet<>();
+    // indexed by exact task class and resource identity, queries by super class go thru all matched task classes, which are few
+    private final Map<Class<?>, List<Task>> tasksByClass = new HashMap<>();
+    private final Map<Class<?>, Map<Resource, List<Task>>> tasksByResource = new HashMap<>();
 
     public <T extends Task> T add(T task) {
-        tasks.add(task);
+        if (tasks.add(task)) {
+            tasksByClass.computeIfAbsent(task.getClass(), key -> new ArrayList<>()).add(task);
+            tasksByResource.computeIfAbsent(task.getClass(), key -> new IdentityHashMap<>())
+                .computeIfAbsent(task.resource, key -> new ArrayList<>(1)).add(task);
+        }
         return task;
     }
 
@@ -23,14 +37,45 @@ public final class Tasks {
     }
 
     public void addAll(Tasks tasks) {
-        this.tasks.addAll(tasks.tasks);
+        tasks.tasks.forEach(this::add);
     }
 
     public void removeAll(Set<? extends Task> tasks) {
-        this.tasks.removeAll(tasks);
+        for (Task task : tasks) {
+            if (this.tasks.remove(task)) {
+                tasksByClass.get(task.getClass()).remove(task);
+                Map<Resource, List<Task>> tasksByResource = this.tasksByResource.get(task.getClass());
+                List<Task> resourceTasks = tasksByResource.get(task.resource);
+                resourceTasks.remove(task);
+                if (resourceTasks.isEmpty()) tasksByResource.remove(task.resource);
+            }
+        }
     }
 
-    public void execute(Context context) throws ExecutionException, InterruptedException {
+    // all tasks of given class or its sub classes
+    @SuppressWarnings("unchecked")
+    public <T extends Task> List<T> all(Class<T> taskClass) {
+        List<T> results = new ArrayList<>();
+        tasksByClass.forEach((key, tasks) -> {
+            if (taskClass.isAssignableFrom(key)) results.addAll((List<T>) tasks);
+        });
+        return results;
+    }
+
+    // tasks of given class or its sub classes, for the resource instance
+    @SuppressWarnings("unchecked")
+    public <T extends Task> List<T> all(Class<T> taskClass, Resource resource) {
+        List<T> results = new ArrayList<>();
+        tasksByResource.forEach((key, tasks) -> {
+            if (taskClass.isAssignableFrom(key)) {
+                List<Task> resourceTasks = tasks.get(resource);
+                if (resourceTasks != null) results.addAll((List<T>) resourceTasks);
+            }
+        });
+        return results;
+    }
+
+    public void execute(Context context) throws ExecutionException, InterruptedException, IOException {
         new Workflow(this).execute(context);
     }
 
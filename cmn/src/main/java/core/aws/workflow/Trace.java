@@ -0,0 +1,114 @@
+package core.aws.workflow;
+
+import core.aws.util.JSON;
+import core.aws.util.Threads;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * trace event format, can be opened by chrome://tracing or https://ui.perfetto.dev, one track per task
+ *
+ * @author neo
+ */
+final class Trace {
+    private final List<Map<String, Object>> events = new ArrayList<>();
+    private final long startTime;   // all timestamps are relative to workflow start
+
+    Trace(String run, long startTime) {
+        this.startTime = startTime;
+        events.add(metadata("process_name", 0, run));
+    }
+
+    void add(Tasks tasks) {
+        List<Task> scheduledTasks = tasks.stream()
+            .filter(task -> task.scheduledTime > 0)
+            .sorted(Comparator.comparingLong(task -> task.scheduledTime))
+            .collect(Collectors.toList());
+        int tid = 0;
+        for (Task<?> task : scheduledTasks) {
+            tid++;
+            events.add(metadata("thread_name", tid, task.name()));
+            events.add(metadata("thread_sort_index", tid, tid));
+            if (task.startTime == 0) continue;      // cancelled while queued
+            events.add(slice("queued", "queue", tid, task.scheduledTime, task.startTime, null));
+
+            long endTime = task.endTime == 0 ? System.nanoTime() : task.endTime;
+            Map<String, Object> args = new LinkedHashMap<>();
+            args.put("state", String.valueOf(task.state()));
+            args.put("estimatedCost", task.cost() + "s");
+            events.add(slice(task.name(), "task", tid, task.startTime, endTime, args));
+            for (Threads.Sleep sleep : task.sleeps) {
+                events.add(slice("sleep", "sleep", tid, sleep.startTime, sleep.endTime, null));
+            }
+        }
+    }
+
+    void write(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("traceEvents", events);
+        trace.put("displayTimeUnit", "ms");
+        Files.write(path, JSON.toJSON(trace).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // one trace file is written per run, keep latest ones only
+    static void deleteOldTraces(Path dir, int maxTraces) throws IOException {
+        List<Path> traces;
+        try (Stream<Path> paths = Files.list(dir)) {
+            traces = paths.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith("trace-") && name.endsWith(".json");
+            }).sorted(Comparator.comparing(Trace::lastModifiedTime).reversed()).collect(Collectors.toList());
+        }
+        for (Path path : traces.subList(Math.min(maxTraces, traces.size()), traces.size())) {
+            Files.delete(path);
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Object> slice(String name, String category, int tid, long startTime, long endTime, Map<String, Object> args) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", name);
+        event.put("cat", category);
+        event.put("ph", "X");
+        event.put("pid", 1);
+        event.put("tid", tid);
+        event.put("ts", micros(startTime - this.startTime));
+        event.put("dur", micros(endTime - startTime));
+        if (args != null) event.put("args", args);
+        return event;
+    }
+
+    private Map<String, Object> metadata(String name, int tid, Object value) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", name);
+        event.put("ph", "M");
+        event.put("pid", 1);
+        event.put("tid", tid);
+        event.put("args", Map.of(name.endsWith("sort_index") ? "sort_index" : "name", value));
+        return event;
+    }
+
+    private double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
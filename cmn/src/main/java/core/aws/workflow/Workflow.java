@@ -1,43 +1,146 @@
 package core.aws.workflow;
 
 import core.aws.env.Context;
+import core.aws.env.Environment;
+import core.aws.env.Param;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * @author neo
  */
 public class Workflow {
+    private static final int MAX_TRACES = 10;
+
     private final Logger logger = LoggerFactory.getLogger(Workflow.class);
 
     private final Tasks tasks;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(20);
     private final BlockingQueue<Future> futures = new LinkedBlockingQueue<>();
+    private final AtomicInteger runnableTasks = new AtomicInteger();   // scheduled but not finished, includes running tasks
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private final AtomicInteger maxRunnableTasks = new AtomicInteger();
+    private final AtomicInteger maxRunningTasks = new AtomicInteger();
+    private final AtomicLong queuedNanos = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private ExecutorService executorService;
+    private int concurrency;
+    private FailFast failFast;
+    private Context context;
+    private Journal journal;
 
     public Workflow(Tasks tasks) {
         this.tasks = tasks;
     }
 
-    public void execute(Context context) throws InterruptedException, ExecutionException {
+    public void execute(Context context) throws InterruptedException, ExecutionException, IOException {
+        this.context = context;
+        concurrency = context.env.workflowConcurrency;
+        failFast = context.env.failFast;
+        executorService = createExecutorService(concurrency);
+
         tasks.stream().forEach(task -> task.injectDependencies(this, context));
 
-        tasks.stream().forEach(Task::runIfReady);
+        String run = run(context);
+        boolean resume = "true".equals(context.param(Param.RESUME));
+        Path journalPath = context.env.runtimeDir.resolve("workflow.journal");
+        if (resume) resume(new Journal(journalPath).doneTasks(run));
+        if (!"true".equals(context.param(Param.DRY_RUN))) {
+            journal = new Journal(journalPath);
+            journal.open(run, resume);
+        }
+
+        CriticalPath.calculatePriorities(tasks);
+
+        long startTime = System.nanoTime();
+        try {
+            tasks.stream().sorted(Comparator.comparingLong((Task task) -> task.priority).reversed()).forEach(Task::runIfReady);
+
+            finish();
+        } finally {
+            writeTrace(run, startTime);     // also for dry-run and failed run, trace never throws
+            if (journal != null) journal.close(tasks.stream().allMatch(Task::done));
+        }
 
-        finish();
+        logStatistics(System.nanoTime() - startTime);
+        logCriticalPath();
 
         checkUnfinishedTasks();
     }
 
+    private void writeTrace(String run, long startTime) {
+        Path path = context.env.runtimeDir.resolve("trace-" + run.toLowerCase(Locale.US).replace(':', '-').replace(',', '-') + LocalDateTime.now().format(DateTimeFormatter.ofPattern("-yyyyMMdd-HHmmss")) + ".json");
+        try {
+            Trace trace = new Trace(run, startTime);
+            trace.add(tasks);
+            trace.write(path);
+            Trace.deleteOldTraces(context.env.runtimeDir, MAX_TRACES);
+            logger.info("workflow trace => {}, open with chrome://tracing or https://ui.perfetto.dev", path);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("failed to write workflow trace, path={}", path, e);    // trace is for troubleshooting only, not to fail the workflow
+        }
+    }
+
+    private String run(Context context) {
+        List<String> resourceIds = context.params(Param.RESOURCE_ID);
+        if (resourceIds == null) return context.goal.name();
+        return context.goal.name() + ":" + String.join(",", resourceIds);
+    }
+
+    // mark tasks done by previous run, and replay their outputs, task name must be unique to be matched
+    private void resume(Map<String, Journal.JournalEntry> doneTasks) {
+        Map<String, Long> taskNames = tasks.stream().collect(Collectors.groupingBy(Task::name, Collectors.counting()));
+        int resumedTasks = 0;
+        for (Task task : tasks.stream().collect(Collectors.toList())) {
+            String name = task.name();
+            Journal.JournalEntry entry = doneTasks.get(name);
+            if (entry == null || taskNames.get(name) > 1) continue;
+            task.resume();
+            if (entry.outputs != null) entry.outputs.forEach((key, values) -> values.forEach(value -> context.output(key, value)));
+            resumedTasks++;
+        }
+        logger.info("resume workflow, doneTasks={}, resumedTasks={}, remainingTasks={}", doneTasks.size(), resumedTasks, tasks.size() - resumedTasks);
+    }
+
+    ExecutorService createExecutorService(int concurrency) {
+        if (concurrency == Environment.UNBOUNDED_CONCURRENCY) {
+            logger.info("workflow runs all ready tasks at once");
+            return Executors.newCachedThreadPool();     // tasks mostly wait on aws, thread per ready task avoids queuing behind sleeping tasks
+        }
+        logger.info("workflow runs with fixed thread pool, concurrency={}", concurrency);
+        // when all threads are busy, pick the queued task with the longest remaining path first
+        Comparator<Runnable> priority = Comparator.comparingLong((Runnable future) -> ((TaskFuture) future).task.priority).reversed()
+            .thenComparingLong(future -> ((TaskFuture) future).sequence);
+        return new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(64, priority));
+    }
+
     private void finish() throws ExecutionException, InterruptedException {
         while (!futures.isEmpty()) {
             Future future = futures.take();
@@ -48,17 +151,104 @@ public class Workflow {
     }
 
     void submit(Task<?> task) throws InterruptedException {
-        Future<Void> future = executorService.submit(task);
+        task.scheduledTime = System.nanoTime();
+        updateMax(maxRunnableTasks, runnableTasks.incrementAndGet());
+        TaskFuture future = new TaskFuture(task, sequence.getAndIncrement());
+        executorService.execute(future);
         futures.put(future);
     }
 
+    void started(Task<?> task) {
+        task.startTime = System.nanoTime();
+        queuedNanos.addAndGet(task.startTime - task.scheduledTime);
+        updateMax(maxRunningTasks, runningTasks.incrementAndGet());
+    }
+
+    void finished(Task<?> task) {
+        task.endTime = System.nanoTime();
+        runningTasks.decrementAndGet();
+        runnableTasks.decrementAndGet();
+    }
+
+    void record(Task<?> task, TaskState state) {
+        if (journal != null) journal.append(task.name(), state, context.taskOutputs());
+    }
+
+    void failed(Task<?> task) {
+        Set<Task> dependents = reachableTasks(task);
+        dependents.remove(task);
+        dependents.forEach(Task::skip);
+        if (failFast == FailFast.OFF) {
+            logger.warn("skip dependents of failed task, task={}, skippedTasks={}", task.name(), dependents.size());
+            return;
+        }
+
+        Set<Task> abortedTasks = failFast == FailFast.ALL ? tasks.stream().collect(Collectors.toSet()) : runningTasksLeadingTo(dependents);
+        abortedTasks.remove(task);
+        logger.warn("fail fast, abort remaining tasks, failFast={}, task={}, abortedTasks={}", failFast, task.name(), abortedTasks.size());
+        abortedTasks.forEach(Task::abort);
+    }
+
+    // all tasks depending on given task
+    @SuppressWarnings("unchecked")
+    private Set<Task> reachableTasks(Task<?> task) {
+        Set<Task> reachableTasks = new HashSet<>();
+        Deque<Task> queue = new ArrayDeque<>();
+        queue.add(task);
+        while (!queue.isEmpty()) {
+            Task current = queue.poll();
+            if (!reachableTasks.add(current)) continue;
+            queue.addAll(current.backwardDependencies);
+        }
+        return reachableTasks;
+    }
+
+    // scheduled tasks which skipped tasks wait for, only walk up dependencies, not down from shared ancestors, so other branches keep running
+    @SuppressWarnings("unchecked")
+    private Set<Task> runningTasksLeadingTo(Set<Task> skippedTasks) {
+        Set<Task> visitedTasks = new HashSet<>();
+        Set<Task> runningTasks = new HashSet<>();
+        Deque<Task> queue = new ArrayDeque<>(skippedTasks);
+        while (!queue.isEmpty()) {
+            Task current = queue.poll();
+            if (!visitedTasks.add(current) || current.done()) continue;
+            if (current.state() == TaskState.SCHEDULED) runningTasks.add(current);
+            queue.addAll(current.dependencies);
+        }
+        return runningTasks;
+    }
+
+    private void updateMax(AtomicInteger max, int value) {
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    private void logStatistics(long elapsedNanos) {
+        logger.info("workflow finished, tasks={}, concurrency={}, maxRunnableTasks={}, maxRunningTasks={}, queuedTime={}, elapsed={}",
+            tasks.size(),
+            concurrency == Environment.UNBOUNDED_CONCURRENCY ? "unbounded" : concurrency,
+            maxRunnableTasks.get(),
+            maxRunningTasks.get(),
+            Duration.ofNanos(queuedNanos.get()),
+            Duration.ofNanos(elapsedNanos));
+    }
+
+    private void logCriticalPath() {
+        List<Task> path = CriticalPath.actualPath(tasks);
+        if (path.isEmpty()) return;
+        logger.info("critical path => {}", path.stream().map(Task::name).collect(Collectors.joining(" -> ")));
+        for (Task task : path) {
+            logger.info("critical path task {} => estimated={}s, queued={}, elapsed={}",
+                task.name(), task.cost(), Duration.ofNanos(task.startTime - task.scheduledTime), Duration.ofNanos(task.endTime - task.startTime));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private void checkUnfinishedTasks() {
         List<Task> unfinishedTasks = new ArrayList<>();
         tasks.stream().forEach(task -> {
             if (!task.done()) {
                 unfinishedTasks.add(task);
-                logger.error("task didn't finish, task={}", task);
+                logger.error("task didn't finish, state={}, task={}", task.state(), task);
                 for (Task dependency : (Set<Task>) task.dependencies) {
                     logger.error("task depends on {}", dependency);
                 }
@@ -67,4 +257,15 @@ public class Workflow {
         if (!unfinishedTasks.isEmpty())
             throw new IllegalStateException("failed to finish all tasks, unfinishedTasks=" + unfinishedTasks);
     }
+
+    static final class TaskFuture extends FutureTask<Void> {
+        final Task<?> task;
+        final long sequence;
+
+        TaskFuture(Task<?> task, long sequence) {
+            super(task);
+            this.task = task;
+            this.sequence = sequence;
+        }
+    }
 }
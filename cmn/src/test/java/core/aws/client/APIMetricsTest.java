@@ -0,0 +1,83 @@
+package core.aws.client;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.handlers.HandlerAfterAttemptContext;
+import com.amazonaws.services.cloudwatch.model.DescribeAlarmsRequest;
+import com.amazonaws.services.s3.model.ListBucketsRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author neo
+ */
+class APIMetricsTest {
+    APIMetrics metrics;
+
+    @BeforeEach
+    void createAPIMetrics() {
+        metrics = new APIMetrics();
+    }
+
+    @Test
+    void summary() {
+        metrics.trackCaller("create-asg:app");
+        call(new ListBucketsRequest(), "Amazon S3", 1, null);
+        call(new ListBucketsRequest(), "Amazon S3", 3, null);     // throttled twice then succeeded
+        metrics.trackCaller("create-alarm:app");
+        call(new ListBucketsRequest(), "Amazon S3", 1, null);
+        call(new DescribeAlarmsRequest(), "AmazonCloudWatch", 1, new AmazonServiceException("error"));
+        metrics.trackCaller(null);
+
+        Map<String, APIMetrics.Metric> byOperation = metrics.summary(metric -> metric.operation).stream().collect(Collectors.toMap(metric -> metric.name, metric -> metric));
+        APIMetrics.Metric listBuckets = byOperation.get("Amazon S3.ListBuckets");
+        assertEquals(3, listBuckets.calls.get(), "calls of same operation from different tasks are summed");
+        assertEquals(2, listBuckets.retries());
+        assertEquals(2, listBuckets.throttles.get());
+        assertEquals(0, listBuckets.errors.get());
+        assertEquals(1, byOperation.get("AmazonCloudWatch.DescribeAlarms").errors.get());
+
+        List<APIMetrics.Metric> byTask = metrics.summary(metric -> metric.caller);
+        assertEquals(List.of("create-asg:app", "create-alarm:app"), byTask.stream().map(metric -> metric.name).collect(Collectors.toList()), "sorted by calls desc");
+        assertEquals(2, byTask.get(0).calls.get());
+        assertEquals(2, byTask.get(1).calls.get());
+    }
+
+    @Test
+    void percentile() {
+        APIMetrics.Metric metric = new APIMetrics.Metric("metric", null, null);
+        for (int i = 0; i < 9; i++) metric.record(40);
+        metric.record(3000);
+
+        assertEquals(50, metric.percentile(0.5), "upper bound of bucket");
+        assertEquals(50, metric.percentile(0.9));
+        assertEquals(3000, metric.percentile(0.99), "max latency is used if smaller than bucket bound");
+        assertEquals(3000, metric.maxLatency.get());
+    }
+
+    // attempts before the last one fail with throttling, last attempt fails with given error or succeeds
+    private void call(AmazonWebServiceRequest originalRequest, String serviceName, int attempts, AmazonServiceException error) {
+        Request<?> request = new DefaultRequest<>(originalRequest, serviceName);
+        metrics.beforeRequest(request);
+        for (int i = 1; i < attempts; i++) {
+            metrics.afterAttempt(HandlerAfterAttemptContext.builder().withRequest(request).withException(throttled()).build());
+        }
+        metrics.afterAttempt(HandlerAfterAttemptContext.builder().withRequest(request).withException(error).build());
+        if (error == null) metrics.afterResponse(request, null);
+        else metrics.afterError(request, null, error);
+    }
+
+    private AmazonServiceException throttled() {
+        AmazonServiceException exception = new AmazonServiceException("throttled");
+        exception.setErrorCode("Throttling");
+        return exception;
+    }
+}
@@ -0,0 +1,76 @@
+package core.aws.client;
+
+import com.amazonaws.ClientConfiguration;
+import core.aws.env.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class AWSTest {
+    @TempDir
+    Path dir;
+    Environment env;
+
+    @BeforeEach
+    void createEnvironment() throws IOException {
+        System.setProperty("cmn.ansible", dir.toString());
+        env = new Environment(dir);
+    }
+
+    @Test
+    void createClientOnFirstUse() {
+        AtomicInteger created = new AtomicInteger();
+        AWS.Lazy<Object> lazy = new AWS.Lazy<>("test", () -> {
+            created.incrementAndGet();
+            return new Object();
+        });
+        assertEquals(0, created.get());
+
+        Object client = lazy.get();
+        assertSame(client, lazy.get());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void maxConnectionsDerivedFromConcurrency() {
+        env.workflowConcurrency(Environment.UNBOUNDED_CONCURRENCY);
+        assertEquals(200, AWS.clientConfiguration(env).getMaxConnections());
+
+        env.workflowConcurrency(10);
+        assertEquals(ClientConfiguration.DEFAULT_MAX_CONNECTIONS, AWS.clientConfiguration(env).getMaxConnections());
+
+        env.workflowConcurrency(40);
+        assertEquals(80, AWS.clientConfiguration(env).getMaxConnections());
+
+        env.awsClient.maxConnections = 30;
+        assertEquals(30, AWS.clientConfiguration(env).getMaxConnections());
+    }
+
+    @Test
+    void clientConfiguration() {
+        env.awsClient.tcpKeepAlive = false;
+        env.awsClient.socketTimeout = Duration.ofSeconds(10);
+        env.awsClient.gzip = true;
+        ClientConfiguration config = AWS.clientConfiguration(env);
+        assertFalse(config.useTcpKeepAlive());
+        assertEquals(10000, config.getSocketTimeout());
+        assertTrue(config.useGzip());
+        assertEquals(ClientConfiguration.DEFAULT_REQUEST_TIMEOUT, config.getRequestTimeout());
+
+        env.awsClient.requestTimeout = Duration.ofSeconds(30);
+        assertEquals(30000, AWS.clientConfiguration(env).getRequestTimeout());
+    }
+}
@@ -0,0 +1,88 @@
+package core.aws.client;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.s3.model.ListBucketsRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author neo
+ */
+class AsyncTest {
+    @AfterEach
+    void clearCaller() {
+        AWS.API_METRICS.trackCaller(null);
+    }
+
+    @Test
+    void callSuccess() {
+        CompletableFuture<String> future = Async.call((ListBucketsRequest request, AsyncHandler<ListBucketsRequest, String> handler) -> {
+            handler.onSuccess(request, "buckets");
+            return null;
+        }, new ListBucketsRequest());
+
+        assertEquals("buckets", future.join());
+    }
+
+    @Test
+    void callError() {
+        IllegalStateException error = new IllegalStateException("throttled");
+        CompletableFuture<String> future = Async.call((ListBucketsRequest request, AsyncHandler<ListBucketsRequest, String> handler) -> {
+            handler.onError(error);
+            return null;
+        }, new ListBucketsRequest());
+
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertSame(error, exception.getCause());
+    }
+
+    @Test
+    void paginate() {
+        Map<String, Page> pages = Map.of("", new Page(List.of("a", "b"), "page2"),
+            "page2", new Page(List.of("c"), "page3"),
+            "page3", new Page(List.of("d"), ""));
+        List<String> tokens = new ArrayList<>();
+
+        List<String> items = Async.paginate(token -> {
+            tokens.add(token);
+            return CompletableFuture.completedFuture(pages.get(token == null ? "" : token));
+        }, page -> page.items, page -> page.nextToken).join();
+
+        assertEquals(List.of("a", "b", "c", "d"), items);
+        assertEquals(Arrays.asList(null, "page2", "page3"), tokens);
+    }
+
+    @Test
+    void executorKeepsCaller() throws InterruptedException, ExecutionException {
+        ExecutorService executor = new Async.CallerExecutor(1);
+
+        AWS.API_METRICS.trackCaller("deploy-app");
+        assertEquals("deploy-app", executor.submit(AWS.API_METRICS::caller).get());
+
+        AWS.API_METRICS.trackCaller(null);
+        assertEquals(Thread.currentThread().getName(), executor.submit(AWS.API_METRICS::caller).get());     // fall back to submitting thread name
+    }
+
+    private static final class Page {
+        final List<String> items;
+        final String nextToken;
+
+        Page(List<String> items, String nextToken) {
+            this.items = items;
+            this.nextToken = nextToken;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package core.aws.client;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.autoscaling.AmazonAutoScaling;
+import com.amazonaws.services.autoscaling.AmazonAutoScalingAsync;
+import com.amazonaws.services.autoscaling.model.AutoScalingGroup;
+import com.amazonaws.services.autoscaling.model.DescribeAutoScalingGroupsRequest;
+import com.amazonaws.services.autoscaling.model.DescribeAutoScalingGroupsResult;
+import com.amazonaws.services.autoscaling.model.DescribePoliciesRequest;
+import com.amazonaws.services.autoscaling.model.DescribePoliciesResult;
+import com.amazonaws.services.autoscaling.model.DescribeTagsRequest;
+import com.amazonaws.services.autoscaling.model.DescribeTagsResult;
+import com.amazonaws.services.autoscaling.model.ScalingPolicy;
+import com.amazonaws.services.autoscaling.model.TagDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author neo
+ */
+class AutoScalingTest {
+    AmazonAutoScaling client;
+    AmazonAutoScalingAsync asyncClient;
+    AutoScaling autoScaling;
+
+    @BeforeEach
+    void createAutoScaling() {
+        client = mock(AmazonAutoScaling.class);
+        asyncClient = mock(AmazonAutoScalingAsync.class);
+        autoScaling = new AutoScaling(client, asyncClient);
+    }
+
+    @Test
+    void listASGroupsByTag() {
+        when(client.describeTags(any(DescribeTagsRequest.class))).thenReturn(
+            new DescribeTagsResult().withTags(asGroupTags(0, 40)).withNextToken("page2"),
+            new DescribeTagsResult().withTags(asGroupTags(40, 60)));
+        when(client.describeAutoScalingGroups(any(DescribeAutoScalingGroupsRequest.class))).thenAnswer(invocation -> {
+            DescribeAutoScalingGroupsRequest request = invocation.getArgument(0);
+            return new DescribeAutoScalingGroupsResult().withAutoScalingGroups(request.getAutoScalingGroupNames().stream()
+                .map(name -> new AutoScalingGroup().withAutoScalingGroupName(name)).collect(Collectors.toList()));
+        });
+
+        List<AutoScalingGroup> asGroups = autoScaling.listASGroupsByTag("cloud-manager:env", "env");
+
+        assertEquals(60, asGroups.size());
+        verify(client, times(2)).describeTags(any(DescribeTagsRequest.class));
+        verify(client, times(2)).describeAutoScalingGroups(any(DescribeAutoScalingGroupsRequest.class));   // described by name in batches of 50
+    }
+
+    @Test
+    void describeScalingPoliciesByGroup() {
+        List<DescribePoliciesRequest> requests = mockDescribePolicies();
+
+        List<ScalingPolicy> policies = autoScaling.describeScalingPoliciesAsync(List.of("env-app", "env-web")).join();
+
+        assertEquals(Set.of("env-app", "env-web"), policies.stream().map(ScalingPolicy::getAutoScalingGroupName).collect(Collectors.toSet()));
+        assertEquals(4, policies.size());
+        assertEquals(4, requests.size());   // two pages for each group
+        assertTrue(requests.stream().allMatch(request -> request.getAutoScalingGroupName() != null && request.getMaxRecords() == 100));
+    }
+
+    @Test
+    void describeScalingPoliciesOfManyGroups() {
+        List<DescribePoliciesRequest> requests = mockDescribePolicies();
+        List<String> asGroupNames = IntStream.range(0, 21).mapToObj(i -> "env-app" + i).collect(Collectors.toList());
+
+        List<ScalingPolicy> policies = autoScaling.describeScalingPoliciesAsync(asGroupNames).join();
+
+        assertEquals(List.of(), policies);  // policies of other groups are filtered out
+        assertEquals(2, requests.size());   // list all policies page by page
+        assertTrue(requests.stream().allMatch(request -> request.getAutoScalingGroupName() == null));
+    }
+
+    // each group has two pages, one policy per page, null group name returns policies of group "other"
+    @SuppressWarnings("unchecked")
+    private List<DescribePoliciesRequest> mockDescribePolicies() {
+        List<DescribePoliciesRequest> requests = new CopyOnWriteArrayList<>();
+        when(asyncClient.describePoliciesAsync(any(DescribePoliciesRequest.class), any(AsyncHandler.class))).thenAnswer(invocation -> {
+            DescribePoliciesRequest request = invocation.getArgument(0);
+            AsyncHandler<DescribePoliciesRequest, DescribePoliciesResult> handler = invocation.getArgument(1);
+            requests.add(request);
+            String asGroupName = request.getAutoScalingGroupName() == null ? "other" : request.getAutoScalingGroupName();
+            DescribePoliciesResult result = request.getNextToken() == null
+                ? new DescribePoliciesResult().withScalingPolicies(policy(asGroupName, "scale-out")).withNextToken("page2")
+                : new DescribePoliciesResult().withScalingPolicies(policy(asGroupName, "scale-in"));
+            handler.onSuccess(request, result);
+            return null;
+        });
+        return requests;
+    }
+
+    private List<TagDescription> asGroupTags(int from, int to) {
+        return IntStream.range(from, to)
+            .mapToObj(i -> new TagDescription().withResourceType("auto-scaling-group").withResourceId("env-app" + i).withKey("cloud-manager:env").withValue("env"))
+            .collect(Collectors.toList());
+    }
+
+    private ScalingPolicy policy(String asGroupName, String name) {
+        return new ScalingPolicy().withAutoScalingGroupName(asGroupName).withPolicyName(asGroupName + "-" + name);
+    }
+}
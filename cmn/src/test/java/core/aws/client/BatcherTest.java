@@ -0,0 +1,159 @@
+package core.aws.client;
+
+import com.amazonaws.AmazonServiceException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class BatcherTest {
+    // window never ends in test, batch is flushed once all keys joined, so it does not depend on thread timing
+    @Test
+    void coalesceConcurrentRequests() {
+        List<List<Integer>> calls = new CopyOnWriteArrayList<>();
+        Batcher<Integer, String> batcher = new Batcher<>("test", Duration.ofHours(1), 10, keys -> {
+            calls.add(keys);
+            return keys.stream().collect(Collectors.toMap(key -> key, String::valueOf));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int key = i;
+                results.add(CompletableFuture.supplyAsync(() -> batcher.get(key), executor));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals(String.valueOf(i), results.get(i).join());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.size());
+        assertEquals(10, calls.get(0).size());
+    }
+
+    @Test
+    void shareSameKey() {
+        List<List<Integer>> calls = new ArrayList<>();
+        Batcher<Integer, String> batcher = new Batcher<>("test", Duration.ofHours(1), 2, keys -> {
+            calls.add(keys);
+            return keys.stream().collect(Collectors.toMap(key -> key, String::valueOf));
+        });
+
+        assertEquals(Map.of(1, "1", 2, "2"), batcher.getAll(List.of(1, 1, 2)));
+        assertEquals(List.of(List.of(1, 2)), calls);
+    }
+
+    @Test
+    void splitByMaxBatchSize() {
+        AtomicInteger calls = new AtomicInteger();
+        Batcher<Integer, Integer> batcher = new Batcher<>("test", Duration.ofSeconds(10), 2, keys -> {
+            calls.incrementAndGet();
+            return keys.stream().collect(Collectors.toMap(key -> key, key -> key * 10));
+        });
+
+        Map<Integer, Integer> results = batcher.getAll(List.of(1, 2, 3, 4));    // full batches are flushed without waiting for window
+
+        assertEquals(Map.of(1, 10, 2, 20, 3, 30, 4, 40), results);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void notFound() {
+        Batcher<Integer, String> batcher = new Batcher<>("test", Duration.ofMillis(1), 100, keys -> Map.of());
+
+        assertNull(batcher.get(1));
+    }
+
+    @Test
+    void failed() {
+        Batcher<Integer, String> batcher = new Batcher<>("test", Duration.ofMillis(1), 100, keys -> {
+            throw new IllegalStateException("throttled");
+        });
+
+        assertThrows(IllegalStateException.class, () -> batcher.get(1));
+    }
+
+    @Test
+    void splitBatchWithInvalidKey() {
+        List<List<Integer>> calls = new ArrayList<>();
+        Batcher<Integer, String> batcher = new Batcher<>("test", Duration.ofHours(1), 4, keys -> {
+            calls.add(List.copyOf(keys));
+            if (keys.contains(-1)) throw serviceException("InvalidInstanceID.NotFound", "The instance ID '-1' does not exist");
+            return keys.stream().collect(Collectors.toMap(key -> key, String::valueOf));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int key : List.of(1, 2, 3, -1)) {
+                results.add(CompletableFuture.supplyAsync(() -> batcher.get(key), executor));
+            }
+
+            assertEquals("1", results.get(0).join());
+            assertEquals("2", results.get(1).join());
+            assertEquals("3", results.get(2).join());
+            CompletionException exception = assertThrows(CompletionException.class, () -> results.get(3).join());
+            assertTrue(exception.getCause() instanceof AmazonServiceException);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(5, calls.size());  // whole batch, then halves until invalid key is alone
+    }
+
+    @Test
+    void failAllCallersOnThrottling() {
+        AtomicInteger calls = new AtomicInteger();
+        Batcher<Integer, String> batcher = new Batcher<>("test", Duration.ofHours(1), 2, keys -> {
+            calls.incrementAndGet();
+            throw serviceException("RequestLimitExceeded", "Request limit exceeded.");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<String> result1 = CompletableFuture.supplyAsync(() -> batcher.get(1), executor);
+            CompletableFuture<String> result2 = CompletableFuture.supplyAsync(() -> batcher.get(2), executor);
+
+            assertThrows(CompletionException.class, result1::join);
+            assertThrows(CompletionException.class, result2::join);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, calls.get());   // not split while aws is throttling
+    }
+
+    @Test
+    void invalidKey() {
+        assertTrue(Batcher.invalidKey(serviceException("InvalidSubnetID.Malformed", "Invalid id"), List.of("subnet-1")));
+        assertTrue(Batcher.invalidKey(serviceException("InvalidInstance", "Could not find EC2 instance i-2"), List.of("i-1", "i-2")));
+        assertTrue(Batcher.invalidKey(serviceException("ValidationError", "Group env-app not found"), List.of("env-app")));
+        assertFalse(Batcher.invalidKey(serviceException("ValidationError", "MaxRecords must be at most 100"), List.of("env-app")));
+        assertFalse(Batcher.invalidKey(serviceException("Throttling", "Rate exceeded"), List.of("env-app")));
+        assertFalse(Batcher.invalidKey(new IllegalStateException("failed"), List.of("env-app")));
+    }
+
+    private AmazonServiceException serviceException(String errorCode, String message) {
+        AmazonServiceException exception = new AmazonServiceException(message);
+        exception.setErrorCode(errorCode);
+        return exception;
+    }
+}
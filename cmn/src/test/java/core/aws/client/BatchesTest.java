@@ -0,0 +1,44 @@
+package core.aws.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class BatchesTest {
+    @Test
+    void partition() {
+        List<Integer> items = IntStream.range(0, 45).boxed().collect(Collectors.toList());
+        List<List<Integer>> batches = Batches.partition(items, 20);
+
+        assertEquals(3, batches.size());
+        assertEquals(20, batches.get(0).size());
+        assertEquals(5, batches.get(2).size());
+        assertTrue(Batches.partition(List.of(), 20).isEmpty());
+    }
+
+    @Test
+    void call() {
+        List<List<Integer>> batches = Batches.partition(IntStream.range(0, 45).boxed().collect(Collectors.toList()), 20);
+        List<Integer> sums = Batches.call(batches, 5, batch -> batch.stream().mapToInt(Integer::intValue).sum());
+
+        assertEquals(List.of(190, 590, 210), sums);
+    }
+
+    @Test
+    void callWithError() {
+        List<List<Integer>> batches = Batches.partition(List.of(1, 2, 3), 1);
+
+        assertThrows(IllegalStateException.class, () -> Batches.call(batches, 5, batch -> {
+            throw new IllegalStateException("failed");
+        }));
+    }
+}
@@ -0,0 +1,77 @@
+package core.aws.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author neo
+ */
+class DescribeCacheTest {
+    private final List<List<Integer>> loadedKeys = new ArrayList<>();
+    private final Function<List<Integer>, Map<Integer, String>> loader = keys -> {
+        loadedKeys.add(keys);
+        return keys.stream().filter(key -> key >= 0).collect(Collectors.toMap(key -> key, String::valueOf));
+    };
+
+    @Test
+    void loadMissingKeysOnly() {
+        DescribeCache<Integer, String> cache = new DescribeCache<>("test", Duration.ofMinutes(1));
+        cache.getAll(List.of(1, 2), loader);
+        Map<Integer, String> results = cache.getAll(List.of(1, 2, 3), loader);
+
+        assertEquals(Map.of(1, "1", 2, "2", 3, "3"), results);
+        assertEquals(List.of(List.of(1, 2), List.of(3)), loadedKeys);
+    }
+
+    @Test
+    void invalidate() {
+        DescribeCache<Integer, String> cache = new DescribeCache<>("test", Duration.ofMinutes(1));
+        cache.getAll(List.of(1, 2), loader);
+        cache.invalidate(List.of(1));
+        cache.getAll(List.of(1, 2), loader);
+
+        assertEquals(List.of(List.of(1, 2), List.of(1)), loadedKeys);
+    }
+
+    @Test
+    void expire() {
+        DescribeCache<Integer, String> cache = new DescribeCache<>("test", Duration.ZERO);
+        cache.get(1, loader);
+        cache.get(1, loader);
+
+        assertEquals(2, loadedKeys.size());
+    }
+
+    @Test
+    void notCacheNotFoundOrNotCacheable() {
+        DescribeCache<Integer, String> cache = new DescribeCache<Integer, String>("test", Duration.ofMinutes(1))
+            .cacheable(value -> !"2".equals(value));
+        assertNull(cache.get(-1, loader));
+        assertNull(cache.get(-1, loader));
+        cache.get(2, loader);
+        cache.get(2, loader);
+
+        assertEquals(4, loadedKeys.size());
+    }
+
+    @Test
+    void dropResultLoadedBeforeInvalidation() {
+        DescribeCache<Integer, String> cache = new DescribeCache<>("test", Duration.ofMinutes(1));
+        assertEquals("1", cache.get(1, keys -> {
+            cache.invalidate(keys);     // e.g. other task mutates resource during describe
+            return loader.apply(keys);
+        }));
+        cache.get(1, loader);
+
+        assertEquals(2, loadedKeys.size());
+    }
+}
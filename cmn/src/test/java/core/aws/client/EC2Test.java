@@ -0,0 +1,49 @@
+package core.aws.client;
+
+import com.amazonaws.services.ec2.AmazonEC2;
+import com.amazonaws.services.ec2.AmazonEC2Async;
+import com.amazonaws.services.ec2.model.DescribeTagsRequest;
+import com.amazonaws.services.ec2.model.DescribeTagsResult;
+import com.amazonaws.services.ec2.model.Filter;
+import com.amazonaws.services.ec2.model.TagDescription;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author neo
+ */
+class EC2Test {
+    @Test
+    void describeTagsPageByPage() {
+        AmazonEC2 client = mock(AmazonEC2.class);
+        List<String> nextTokens = new ArrayList<>();
+        when(client.describeTags(any(DescribeTagsRequest.class))).thenAnswer(invocation -> {
+            DescribeTagsRequest request = invocation.getArgument(0);
+            nextTokens.add(request.getNextToken());
+            return request.getNextToken() == null
+                ? new DescribeTagsResult().withTags(tag("i-1", "cloud-manager:env"), tag("i-1", "cloud-manager:env:resource-id")).withNextToken("page2")
+                : new DescribeTagsResult().withTags(tag("i-2", "cloud-manager:env"));
+        });
+        EC2 ec2 = new EC2(client, mock(AmazonEC2Async.class));
+
+        List<List<String>> pages = new ArrayList<>();
+        ec2.describeTags(new DescribeTagsRequest().withFilters(new Filter("resource-type").withValues("instance")),
+            tags -> pages.add(tags.stream().map(TagDescription::getResourceId).collect(Collectors.toList())));
+
+        assertEquals(List.of(List.of("i-1", "i-1"), List.of("i-2")), pages);
+        assertEquals(Arrays.asList(null, "page2"), nextTokens);
+    }
+
+    private TagDescription tag(String resourceId, String key) {
+        return new TagDescription().withResourceType("instance").withResourceId(resourceId).withKey(key).withValue("value");
+    }
+}
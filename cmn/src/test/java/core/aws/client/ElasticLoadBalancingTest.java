@@ -0,0 +1,62 @@
+package core.aws.client;
+
+import com.amazonaws.services.elasticloadbalancing.AmazonElasticLoadBalancing;
+import com.amazonaws.services.elasticloadbalancing.model.DescribeInstanceHealthRequest;
+import com.amazonaws.services.elasticloadbalancing.model.DescribeInstanceHealthResult;
+import com.amazonaws.services.elasticloadbalancing.model.Instance;
+import com.amazonaws.services.elasticloadbalancing.model.InstanceState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author neo
+ */
+class ElasticLoadBalancingTest {
+    @Test
+    void describeInstanceHealthOfConcurrentCallers() {
+        AmazonElasticLoadBalancing client = mock(AmazonElasticLoadBalancing.class);
+        List<DescribeInstanceHealthRequest> requests = new CopyOnWriteArrayList<>();
+        when(client.describeInstanceHealth(any(DescribeInstanceHealthRequest.class))).thenAnswer(invocation -> {
+            DescribeInstanceHealthRequest request = invocation.getArgument(0);
+            requests.add(request);
+            return new DescribeInstanceHealthResult().withInstanceStates(request.getInstances().stream()
+                .map(instance -> new InstanceState().withInstanceId(instance.getInstanceId()).withState("InService"))
+                .collect(Collectors.toList()));
+        });
+        ElasticLoadBalancing elb = new ElasticLoadBalancing(client);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // two tasks polling same elb, 100 keys in total fill one batch, so it is flushed without waiting for window
+            List<String> instanceIds1 = instanceIds(0, 50);
+            List<String> instanceIds2 = instanceIds(50, 100);
+            CompletableFuture<List<InstanceState>> states1 = CompletableFuture.supplyAsync(() -> elb.describeInstanceHealth("env-web", instanceIds1), executor);
+            CompletableFuture<List<InstanceState>> states2 = CompletableFuture.supplyAsync(() -> elb.describeInstanceHealth("env-web", instanceIds2), executor);
+
+            assertEquals(instanceIds1, states1.join().stream().map(InstanceState::getInstanceId).collect(Collectors.toList()));
+            assertEquals(instanceIds2, states2.join().stream().map(InstanceState::getInstanceId).collect(Collectors.toList()));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, requests.size());
+        assertEquals("env-web", requests.get(0).getLoadBalancerName());
+        assertEquals(Set.copyOf(instanceIds(0, 100)), requests.get(0).getInstances().stream().map(Instance::getInstanceId).collect(Collectors.toSet()));
+    }
+
+    private List<String> instanceIds(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> "i-" + i).collect(Collectors.toList());
+    }
+}
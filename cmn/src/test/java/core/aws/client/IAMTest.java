@@ -1,10 +1,24 @@
 package core.aws.client;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.services.identitymanagement.AmazonIdentityManagement;
+import com.amazonaws.services.identitymanagement.model.GetServerCertificateRequest;
+import com.amazonaws.services.identitymanagement.model.GetServerCertificateResult;
+import com.amazonaws.services.identitymanagement.model.ServerCertificate;
+import com.amazonaws.services.identitymanagement.model.ServerCertificateMetadata;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author neo
@@ -12,15 +26,33 @@ import static org.assertj.core.api.Assertions.assertThat;
 class IAMTest {
     @Test
     void assumeRolePolicy() {
-        IAM iam = new IAM(new DefaultAWSCredentialsProviderChain(), Regions.US_EAST_1);
+        IAM iam = new IAM(new DefaultAWSCredentialsProviderChain(), Regions.US_EAST_1, new ClientConfiguration());
         String document = iam.assumeRolePolicyDocument();
         assertThat(document).contains("\"Service\":\"ec2.amazonaws.com\"");
     }
 
     @Test
     void assumeRolePolicyWithChinaRegion() {
-        IAM iam = new IAM(new DefaultAWSCredentialsProviderChain(), Regions.CN_NORTH_1);
+        IAM iam = new IAM(new DefaultAWSCredentialsProviderChain(), Regions.CN_NORTH_1, new ClientConfiguration());
         String document = iam.assumeRolePolicyDocument();
         assertThat(document).contains("\"Service\":\"ec2.amazonaws.com.cn\"");
     }
+
+    @Test
+    void getServerCerts() {
+        AmazonIdentityManagement client = mock(AmazonIdentityManagement.class);
+        when(client.getServerCertificate(any(GetServerCertificateRequest.class))).thenAnswer(invocation -> {
+            GetServerCertificateRequest request = invocation.getArgument(0);
+            return new GetServerCertificateResult().withServerCertificate(new ServerCertificate()
+                .withServerCertificateMetadata(new ServerCertificateMetadata().withServerCertificateName(request.getServerCertificateName()))
+                .withCertificateBody("body-" + request.getServerCertificateName()));
+        });
+        IAM iam = new IAM(client, Regions.US_EAST_1);
+
+        Map<String, ServerCertificate> certs = iam.getServerCerts(List.of("env-cert1", "env-cert2", "env-cert3"));
+
+        assertThat(certs).containsOnlyKeys("env-cert1", "env-cert2", "env-cert3");
+        assertThat(certs.get("env-cert2").getCertificateBody()).isEqualTo("body-env-cert2");
+        verify(client, times(3)).getServerCertificate(any(GetServerCertificateRequest.class));
+    }
 }
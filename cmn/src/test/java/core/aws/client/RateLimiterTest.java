@@ -0,0 +1,36 @@
+package core.aws.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class RateLimiterTest {
+    @Test
+    void acquire() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("ec2");
+        for (int i = 0; i < 19; i++) {
+            assertEquals(0, bucket.acquire(), "burst within initial rate");
+        }
+        long waitTime = 0;
+        for (int i = 0; i < 5; i++) {
+            waitTime = bucket.acquire();
+        }
+        assertTrue(waitTime > 150_000_000L, "queued attempts wait for refill");
+    }
+
+    @Test
+    void decrease() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket("ec2");
+
+        assertEquals(10, bucket.decrease());
+        assertEquals(0, bucket.decrease(), "concurrent throttling only decreases once");
+        assertEquals(10, bucket.rate);
+
+        bucket.increase();
+        assertTrue(bucket.rate > 10);
+    }
+}
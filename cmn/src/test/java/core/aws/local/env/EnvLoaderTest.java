@@ -0,0 +1,47 @@
+package core.aws.local.env;
+
+import core.aws.env.Environment;
+import core.aws.local.ResourceNode;
+import core.aws.workflow.FailFast;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class EnvLoaderTest {
+    @TempDir
+    Path dir;
+    Environment env;
+
+    @BeforeEach
+    void createEnvironment() throws IOException {
+        System.setProperty("cmn.ansible", dir.toString());
+        env = new Environment(dir);
+    }
+
+    @Test
+    void failFast() {
+        load(Map.of("fail-fast", "SubGraph"));
+        assertEquals(FailFast.SUBGRAPH, env.failFast);
+
+        load(Map.of("fail-fast", true));
+        assertEquals(FailFast.ALL, env.failFast);
+
+        AssertionError error = assertThrows(AssertionError.class, () -> load(Map.of("fail-fast", "subgrpah")));
+        assertTrue(error.getMessage().contains("off, subgraph, all"), "allowed values are listed");
+    }
+
+    private void load(Map<String, Object> value) {
+        new EnvLoader().load(new ResourceNode("env", "test", value, "", dir.resolve("env.yml")), env);
+    }
+}
@@ -0,0 +1,93 @@
+package core.aws.plan.ec2;
+
+import com.amazonaws.services.ec2.model.GroupIdentifier;
+import core.aws.resource.ec2.Instance;
+import core.aws.resource.ec2.KeyPair;
+import core.aws.resource.ec2.SecurityGroup;
+import core.aws.resource.vpc.Subnet;
+import core.aws.task.ec2.CreateInstanceTask;
+import core.aws.task.ec2.CreateKeyPairTask;
+import core.aws.task.ec2.CreateSGTask;
+import core.aws.task.ec2.DeleteInstanceTask;
+import core.aws.task.ec2.DeleteSGTask;
+import core.aws.task.vpc.CreateSubnetTask;
+import core.aws.task.vpc.DeleteSubnetTask;
+import core.aws.workflow.Tasks;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author neo
+ */
+class InstanceTaskPlannerTest {
+    @Test
+    void linkCreateTasks() {
+        Tasks tasks = new Tasks();
+        Instance instance1 = instance("1");
+        Instance instance2 = instance("2");
+        instance2.securityGroup = instance1.securityGroup;     // shared sg
+        CreateSGTask sgTask = tasks.add(new CreateSGTask(instance1.securityGroup));
+        CreateSubnetTask subnetTask1 = tasks.add(new CreateSubnetTask(instance1.subnet));
+        CreateSubnetTask subnetTask2 = tasks.add(new CreateSubnetTask(instance2.subnet));
+        CreateKeyPairTask keyPairTask1 = tasks.add(new CreateKeyPairTask(instance1.keyPair));
+        CreateInstanceTask instanceTask1 = tasks.add(new CreateInstanceTask(instance1, 1, false));
+        CreateInstanceTask instanceTask2 = tasks.add(new CreateInstanceTask(instance2, 1, false));     // key pair of instance 2 exists, no task
+
+        new InstanceTaskPlanner(tasks).plan();
+
+        assertEquals(Set.of(sgTask, subnetTask1, keyPairTask1), instanceTask1.dependencies);
+        assertEquals(Set.of(sgTask, subnetTask2), instanceTask2.dependencies);
+        assertEquals(Set.of(instanceTask1, instanceTask2), sgTask.backwardDependencies);
+    }
+
+    @Test
+    void linkDeleteTasks() {
+        Tasks tasks = new Tasks();
+        DeleteSGTask sgTask = tasks.add(new DeleteSGTask(deletedSG("sg-1")));
+        DeleteSGTask otherSGTask = tasks.add(new DeleteSGTask(deletedSG("sg-2")));
+        DeleteSubnetTask subnetTask = tasks.add(new DeleteSubnetTask(deletedSubnet("subnet-1", "subnet-2")));
+        DeleteInstanceTask instanceTask1 = tasks.add(deleteInstanceTask("1", "sg-1", "subnet-1"));
+        DeleteInstanceTask instanceTask2 = tasks.add(deleteInstanceTask("2", "sg-1", "subnet-2"));
+        DeleteInstanceTask instanceTask3 = tasks.add(deleteInstanceTask("3", "sg-kept", "subnet-kept"));
+
+        new InstanceTaskPlanner(tasks).plan();
+
+        assertEquals(Set.of(instanceTask1, instanceTask2), sgTask.dependencies, "sg is deleted after its instances");
+        assertEquals(Set.of(), otherSGTask.dependencies);
+        assertEquals(Set.of(instanceTask1, instanceTask2), subnetTask.dependencies, "subnet spanning multiple azs is matched by any remote subnet");
+        assertEquals(Set.of(), instanceTask3.backwardDependencies);
+    }
+
+    private Instance instance(String id) {
+        Instance instance = new Instance("instance-" + id);
+        instance.securityGroup = new SecurityGroup("sg-" + id);
+        instance.subnet = new Subnet("subnet-" + id);
+        instance.keyPair = new KeyPair("key-" + id, "key-" + id);
+        return instance;
+    }
+
+    private SecurityGroup deletedSG(String groupId) {
+        SecurityGroup securityGroup = new SecurityGroup(groupId);
+        securityGroup.remoteSecurityGroup = new com.amazonaws.services.ec2.model.SecurityGroup().withGroupId(groupId);
+        return securityGroup;
+    }
+
+    private Subnet deletedSubnet(String... subnetIds) {
+        Subnet subnet = new Subnet(subnetIds[0]);
+        for (String subnetId : subnetIds) {
+            subnet.remoteSubnets.add(new com.amazonaws.services.ec2.model.Subnet().withSubnetId(subnetId).withAvailabilityZone("us-east-1a"));
+        }
+        return subnet;
+    }
+
+    private DeleteInstanceTask deleteInstanceTask(String id, String groupId, String subnetId) {
+        com.amazonaws.services.ec2.model.Instance remoteInstance = new com.amazonaws.services.ec2.model.Instance()
+            .withSecurityGroups(new GroupIdentifier().withGroupId(groupId))
+            .withSubnetId(subnetId);
+        return new DeleteInstanceTask(new Instance("instance-" + id), List.of(remoteInstance));
+    }
+}
@@ -0,0 +1,73 @@
+package core.aws.remote;
+
+import core.aws.resource.Resources;
+import core.aws.resource.as.ASGroup;
+import core.aws.resource.ec2.Instance;
+import core.aws.resource.ec2.InstanceProfile;
+import core.aws.resource.ec2.KeyPair;
+import core.aws.resource.ec2.SecurityGroup;
+import core.aws.resource.elb.ELB;
+import core.aws.resource.elb.ServerCert;
+import core.aws.resource.image.Image;
+import core.aws.resource.s3.Bucket;
+import core.aws.resource.vpc.Subnet;
+import core.aws.resource.vpc.VPC;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class LoadScopeTest {
+    @Test
+    void all() {
+        LoadScope scope = LoadScope.all();
+
+        assertTrue(scope.includes(Instance.class));
+        assertTrue(scope.includes(Bucket.class));
+    }
+
+    @Test
+    void dependencyClosure() {
+        Resources resources = new Resources();
+        Instance instance = resources.add(new Instance("app"));
+        instance.securityGroup = resources.add(new SecurityGroup("app-sg"));
+        instance.subnet = resources.add(new Subnet("app-subnet"));
+        instance.keyPair = resources.add(new KeyPair("app-key", "app-key"));
+        instance.elb = resources.add(new ELB("app-elb"));
+        instance.elb.cert = resources.add(new ServerCert("app-cert"));
+        ASGroup asGroup = resources.add(new ASGroup("web"));
+        asGroup.launchConfig.instanceProfile = resources.add(new InstanceProfile("web-profile"));
+
+        LoadScope scope = LoadScope.of(resources, List.of("app"));
+
+        assertTrue(scope.includes(Instance.class));
+        assertTrue(scope.includes(SecurityGroup.class));
+        assertTrue(scope.includes(Subnet.class));
+        assertTrue(scope.includes(KeyPair.class));
+        assertTrue(scope.includes(ELB.class));
+        assertTrue(scope.includes(ServerCert.class), "dependencies are followed transitively, instance -> elb -> cert");
+        assertTrue(scope.includes(VPC.class), "vpc is always loaded for validation");
+        assertFalse(scope.includes(ASGroup.class));
+        assertFalse(scope.includes(InstanceProfile.class), "dependencies of resources not requested are not loaded");
+        assertFalse(scope.includes(Image.class));
+    }
+
+    @Test
+    void image() {
+        Resources resources = new Resources();
+        resources.add(new Image("app"));
+
+        LoadScope scope = LoadScope.of(resources, List.of("app"));
+
+        assertTrue(scope.includes(Image.class));
+        assertTrue(scope.includes(Instance.class), "bake needs unfinished bake instances");
+        assertTrue(scope.includes(SecurityGroup.class));
+        assertTrue(scope.includes(KeyPair.class));
+        assertFalse(scope.includes(Subnet.class));
+    }
+}
@@ -0,0 +1,95 @@
+package core.aws.remote;
+
+import core.aws.resource.Resources;
+import core.aws.resource.ec2.Instance;
+import core.aws.resource.ec2.KeyPair;
+import core.aws.resource.ec2.SecurityGroup;
+import core.aws.resource.s3.Bucket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * @author neo
+ */
+class RemoteResourceLoaderTest {
+    RemoteResourceLoader loader;
+    ExecutorService executor;
+    List<String> loaded;
+
+    @BeforeEach
+    void createRemoteResourceLoader() {
+        loader = new RemoteResourceLoader();
+        executor = Executors.newFixedThreadPool(4);
+        loaded = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void loadAfterPrerequisites() throws InterruptedException, ExecutionException {
+        CountDownLatch sgReleased = new CountDownLatch(1);
+        CompletableFuture<Void> sgs = loader.load(executor, LoadScope.all(), SecurityGroup.class, "sg", () -> {
+            await(sgReleased);
+            loaded.add("sg");
+        });
+        CompletableFuture<Void> keyPairs = loader.load(executor, LoadScope.all(), KeyPair.class, "key-pair", () -> loaded.add("key-pair"));
+        CompletableFuture<Void> instances = loader.load(executor, LoadScope.all(), Instance.class, "instance", () -> loaded.add("instance"), sgs, keyPairs);
+
+        keyPairs.get();
+        assertFalse(instances.isDone(), "instance loader waits for all prerequisites");
+
+        sgReleased.countDown();
+        instances.get();
+        assertEquals(List.of("key-pair", "sg", "instance"), loaded);
+    }
+
+    @Test
+    void skipDependentsOfFailedLoader() {
+        CompletableFuture<Void> sgs = loader.load(executor, LoadScope.all(), SecurityGroup.class, "sg", () -> {
+            throw new IllegalStateException("failed to load sg");
+        });
+        CompletableFuture<Void> instances = loader.load(executor, LoadScope.all(), Instance.class, "instance", () -> loaded.add("instance"), sgs);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, instances::get);
+        assertEquals("failed to load sg", exception.getCause().getMessage());
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    void skipLoaderOutOfScope() {
+        Resources resources = new Resources();
+        resources.add(new Instance("app"));
+        LoadScope scope = LoadScope.of(resources, List.of("app"));
+
+        CompletableFuture<Void> buckets = loader.load(executor, scope, Bucket.class, "s3", () -> fail("loader out of scope should not run"));
+
+        assertTrue(buckets.isDone());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
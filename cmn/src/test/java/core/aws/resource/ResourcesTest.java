@@ -0,0 +1,40 @@
+package core.aws.resource;
+
+import core.aws.resource.as.ASGroup;
+import core.aws.resource.ec2.Instance;
+import core.aws.resource.vpc.VPC;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author neo
+ */
+class ResourcesTest {
+    @Test
+    void find() {
+        Resources resources = new Resources();
+        Instance instance = resources.add(new Instance("app"));
+        ASGroup asGroup = resources.add(new ASGroup("app"));
+
+        assertSame(instance, resources.get(Instance.class, "app"));
+        assertSame(asGroup, resources.get(ASGroup.class, "app"));
+        assertFalse(resources.find(Instance.class, "web").isPresent());
+        assertThrows(IllegalStateException.class, () -> resources.find(Resource.class, "app"), "super class matches both instance and asg");
+    }
+
+    @Test
+    void all() {
+        Resources resources = new Resources();
+        resources.add(new Instance("app"));
+        resources.add(new Instance("web"));
+
+        assertEquals(2, resources.all(Instance.class).size());
+        assertEquals(3, resources.all(Resource.class).size(), "includes default vpc");
+        assertSame(resources.vpc, resources.onlyOne(VPC.class).orElseThrow());
+        assertThrows(IllegalStateException.class, () -> resources.onlyOne(Instance.class));
+    }
+}
@@ -0,0 +1,39 @@
+package core.aws.resource.elb;
+
+import com.amazonaws.services.identitymanagement.model.ServerCertificate;
+import com.amazonaws.services.identitymanagement.model.ServerCertificateMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class ServerCertTest {
+    ServerCert cert;
+
+    @BeforeEach
+    void createServerCert() {
+        cert = new ServerCert("cert");
+        cert.name = "env-cert";
+        cert.certificate = "-----BEGIN CERTIFICATE-----\r\nbody\r\n-----END CERTIFICATE-----";
+    }
+
+    // aws clients are not initialized in test, comparing must not fetch cert body again once it is loaded
+    @Test
+    void changedWithLoadedRemoteCertBody() {
+        cert.remoteCert = remoteCert("-----BEGIN CERTIFICATE-----\nbody\n-----END CERTIFICATE-----");
+        assertFalse(cert.changed());
+
+        cert.remoteCert = remoteCert("-----BEGIN CERTIFICATE-----\nnew-body\n-----END CERTIFICATE-----");
+        assertTrue(cert.changed());
+    }
+
+    private ServerCertificate remoteCert(String body) {
+        return new ServerCertificate()
+            .withServerCertificateMetadata(new ServerCertificateMetadata().withServerCertificateName("env-cert"))
+            .withCertificateBody(body);
+    }
+}
@@ -0,0 +1,75 @@
+package core.aws.task.linux;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class PackageManifestTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void local() throws IOException {
+        Path packageDir = dir.resolve("packages");
+        Files.createDirectories(packageDir.resolve("lib"));
+        Files.writeString(packageDir.resolve("lib/app.jar"), "jar");
+        Files.writeString(packageDir.resolve(PackageManifest.FILE_NAME), "ignored");
+        Path cacheFile = dir.resolve(".cmn/package-manifest-cache");
+
+        PackageManifest manifest = PackageManifest.local(packageDir, cacheFile);
+        assertEquals(Map.of("lib/app.jar", "0163f1eea7894350060624d315234d40c508ab251ba121714e234503045faadd"), manifest.hashes);
+        assertEquals(1, Files.readAllLines(cacheFile).size());
+
+        assertEquals(manifest.hashes, PackageManifest.local(packageDir, cacheFile).hashes);
+    }
+
+    @Test
+    void delta() {
+        PackageManifest remote = PackageManifest.parse("aaa  lib/app.jar\nbbb  lib/removed.jar\nccc  conf/app.properties\n");
+        PackageManifest local = new PackageManifest(Map.of("lib/app.jar", "aaa2", "conf/app.properties", "ccc", "lib/new.jar", "ddd"));
+
+        assertEquals(List.of("lib/removed.jar"), local.deletedFiles(remote));
+        assertEquals(2, local.changedFiles(remote).size());
+        assertEquals(remote.hashes, PackageManifest.parse(remote.text()).hashes);
+    }
+
+    @Test
+    void pruneCache() throws IOException {
+        Path packageDir = dir.resolve("packages");
+        Files.createDirectories(packageDir);
+        Files.writeString(packageDir.resolve("app.jar"), "jar");
+        Files.writeString(packageDir.resolve("removed.jar"), "removed");
+        Path otherDir = dir.resolve("packages-other");
+        Files.createDirectories(otherDir);
+        Files.writeString(otherDir.resolve("other.jar"), "other");
+        Path cacheFile = dir.resolve(".cmn/package-manifest-cache");
+        PackageManifest.local(packageDir, cacheFile);
+        PackageManifest.local(otherDir, cacheFile);
+        assertEquals(3, Files.readAllLines(cacheFile).size());
+
+        Files.delete(packageDir.resolve("removed.jar"));
+        PackageManifest.local(packageDir, cacheFile);
+
+        List<String> lines = Files.readAllLines(cacheFile);
+        assertEquals(2, lines.size());     // entry of other dir sharing cache file is kept
+        assertTrue(lines.stream().noneMatch(line -> line.endsWith("removed.jar")));
+    }
+
+    @Test
+    void parseMalformedLines() {
+        PackageManifest manifest = PackageManifest.parse("aaa  lib/app.jar\nmalformed\n  no-hash.jar\nbbb  conf/app.properties\n");
+
+        assertEquals(Map.of("lib/app.jar", "aaa", "conf/app.properties", "bbb"), manifest.hashes);
+    }
+}
@@ -0,0 +1,22 @@
+package core.aws.task.linux;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class UploadModeTest {
+    @Test
+    void parse() {
+        assertEquals(UploadMode.SFTP, UploadMode.parse(null));
+        assertEquals(UploadMode.TAR, UploadMode.parse("tar"));
+        assertEquals(UploadMode.TAR_GZ, UploadMode.parse("tar-gz"));
+
+        AssertionError error = assertThrows(AssertionError.class, () -> UploadMode.parse("zip"));
+        assertTrue(error.getMessage().contains("sftp, tar, tar-gz"), "allowed values are listed");
+    }
+}
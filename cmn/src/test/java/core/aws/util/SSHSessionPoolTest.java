@@ -0,0 +1,119 @@
+package core.aws.util;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author neo
+ */
+class SSHSessionPoolTest {
+    private static final int MAX_LEASES_PER_HOST = SSHSessionPool.MAX_SESSIONS_PER_HOST * SSHSessionPool.MAX_CHANNELS_PER_SESSION;
+
+    final Path privateKey = Paths.get("key.pem");
+    final List<Session> sessions = new ArrayList<>();
+    final AtomicInteger failedConnects = new AtomicInteger();
+
+    @Test
+    void waitForFreeSlot() throws Exception {
+        SSHSessionPool pool = new SSHSessionPool(this::connect, Duration.ofMinutes(1), Duration.ofMinutes(2));
+        List<SSHSessionPool.Lease> leases = acquire(pool, MAX_LEASES_PER_HOST);
+        assertEquals(SSHSessionPool.MAX_SESSIONS_PER_HOST, sessions.size(), "channels share sessions up to cap of host");
+
+        CompletableFuture<SSHSessionPool.Lease> waiting = CompletableFuture.supplyAsync(() -> acquire(pool));
+        assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+
+        leases.get(0).release();
+        assertSame(leases.get(0).session, waiting.get(5, TimeUnit.SECONDS).session);
+        assertEquals(SSHSessionPool.MAX_SESSIONS_PER_HOST, sessions.size());
+    }
+
+    @Test
+    void acquireTimeout() throws JSchException {
+        SSHSessionPool pool = new SSHSessionPool(this::connect, Duration.ofMillis(50), Duration.ofMinutes(2));
+        acquire(pool, MAX_LEASES_PER_HOST);
+
+        assertThrows(JSchException.class, () -> pool.acquire("host", "ubuntu", privateKey));
+    }
+
+    @Test
+    void failedConnectFreesSlot() throws JSchException {
+        failedConnects.set(1);
+        SSHSessionPool pool = new SSHSessionPool(this::connect, Duration.ofMillis(50), Duration.ofMinutes(2));
+
+        assertThrows(JSchException.class, () -> pool.acquire("host", "ubuntu", privateKey));
+
+        acquire(pool, MAX_LEASES_PER_HOST);     // would time out if failed connect kept its slot
+        assertEquals(SSHSessionPool.MAX_SESSIONS_PER_HOST, sessions.size());
+    }
+
+    @Test
+    void evictIdleSession() throws JSchException {
+        SSHSessionPool pool = new SSHSessionPool(this::connect, Duration.ofMinutes(1), Duration.ZERO);
+        SSHSessionPool.Lease lease = pool.acquire("host", "ubuntu", privateKey);
+
+        pool.evictIdleSessions();
+        verify(lease.session, never()).disconnect();    // in use
+
+        lease.release();
+        pool.evictIdleSessions();
+        verify(lease.session).disconnect();
+
+        assertNotSame(lease.session, pool.acquire("host", "ubuntu", privateKey).session);
+    }
+
+    @Test
+    void invalidateBrokenSession() throws JSchException {
+        SSHSessionPool pool = new SSHSessionPool(this::connect, Duration.ofMinutes(1), Duration.ofMinutes(2));
+        SSHSessionPool.Lease lease = pool.acquire("host", "ubuntu", privateKey);
+
+        lease.invalidate();
+        verify(lease.session).disconnect();
+
+        assertNotSame(lease.session, pool.acquire("host", "ubuntu", privateKey).session);
+        assertEquals(2, sessions.size());
+    }
+
+    private List<SSHSessionPool.Lease> acquire(SSHSessionPool pool, int count) throws JSchException {
+        List<SSHSessionPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            leases.add(pool.acquire("host", "ubuntu", privateKey));
+        }
+        return leases;
+    }
+
+    private SSHSessionPool.Lease acquire(SSHSessionPool pool) {
+        try {
+            return pool.acquire("host", "ubuntu", privateKey);
+        } catch (JSchException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized Session connect(String host, String user, Path privateKey) throws JSchException {
+        if (failedConnects.getAndDecrement() > 0) throw new JSchException("connection refused");
+        Session session = mock(Session.class);
+        when(session.isConnected()).thenReturn(true);
+        sessions.add(session);
+        return session;
+    }
+}
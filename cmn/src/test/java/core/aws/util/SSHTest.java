@@ -0,0 +1,40 @@
+package core.aws.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author neo
+ */
+class SSHTest {
+    @Test
+    void tail() {
+        SSH.Tail tail = new SSH.Tail(5);
+        tail.write("abc".getBytes(Charsets.UTF_8), 3);
+        assertEquals("abc", tail.toString());
+
+        tail.write("defg".getBytes(Charsets.UTF_8), 4);
+        assertEquals("cdefg", tail.toString());
+
+        tail.write("0123456789".getBytes(Charsets.UTF_8), 10);
+        assertEquals("56789", tail.toString());
+    }
+
+    @Test
+    void quote() {
+        assertEquals("'/opt/packages'", SSH.quote("/opt/packages"));
+        assertEquals("'/opt/my app'", SSH.quote("/opt/my app"));
+        assertEquals("'/opt/it'\\''s'", SSH.quote("/opt/it's"));
+    }
+
+    @Test
+    void executeEmptyCommands() {
+        SSH ssh = new SSH("localhost", "ubuntu", Paths.get("key.pem"));
+        assertThrows(AssertionError.class, () -> ssh.executeCommands(new ByteArrayOutputStream()));     // fails before connecting
+    }
+}
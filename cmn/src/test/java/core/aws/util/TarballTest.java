@@ -0,0 +1,52 @@
+package core.aws.util;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author neo
+ */
+class TarballTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void archiveToStream() throws IOException {
+        String longName = "a".repeat(120);
+        java.nio.file.Files.createDirectories(dir.resolve("lib"));
+        java.nio.file.Files.writeString(dir.resolve("lib/app.jar"), "jar");
+        java.nio.file.Files.writeString(dir.resolve(longName), "long");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Tarball(dir).archive(output, false);
+        assertEquals(Map.of("lib/app.jar", "jar", longName, "long"), entries(new ByteArrayInputStream(output.toByteArray())));
+
+        ByteArrayOutputStream gzipOutput = new ByteArrayOutputStream();
+        new Tarball(dir).archive(gzipOutput, true);
+        assertEquals(Map.of("lib/app.jar", "jar", longName, "long"), entries(new GZIPInputStream(new ByteArrayInputStream(gzipOutput.toByteArray()))));
+    }
+
+    private Map<String, String> entries(InputStream stream) throws IOException {
+        Map<String, String> entries = new TreeMap<>();
+        try (TarArchiveInputStream input = new TarArchiveInputStream(stream)) {
+            TarArchiveEntry entry;
+            while ((entry = input.getNextTarEntry()) != null) {
+                entries.put(entry.getName(), new String(input.readAllBytes(), Charsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
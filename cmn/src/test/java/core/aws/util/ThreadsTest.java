@@ -0,0 +1,20 @@
+package core.aws.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class ThreadsTest {
+    @Test
+    void sleepRoughlyWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        assertThrows(IllegalStateException.class, () -> Threads.sleepRoughly(Duration.ofSeconds(10)));
+        assertTrue(Thread.interrupted(), "interrupted status is kept for caller");
+    }
+}
@@ -0,0 +1,41 @@
+package core.aws.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author neo
+ */
+class WaiterTest {
+    @Test
+    void get() {
+        AtomicInteger polls = new AtomicInteger();
+        String result = waiter().get(() -> polls.incrementAndGet() >= 3 ? "available" : null);
+
+        assertEquals("available", result);
+        assertEquals(3, polls.get());
+    }
+
+    @Test
+    void timeout() {
+        Waiter waiter = waiter().timeout(Duration.ofMillis(50));
+
+        assertThrows(Waiter.WaitTimeoutException.class, () -> waiter.until(() -> false));
+    }
+
+    @Test
+    void failedState() {
+        assertThrows(IllegalStateException.class, () -> waiter().until(() -> {
+            throw new IllegalStateException("failed");
+        }));
+    }
+
+    private Waiter waiter() {
+        return new Waiter("test").initialInterval(Duration.ofMillis(1)).maxInterval(Duration.ofMillis(10)).timeout(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,69 @@
+package core.aws.workflow;
+
+import core.aws.env.Context;
+import core.aws.resource.Resource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author neo
+ */
+class CriticalPathTest {
+    @Test
+    void calculatePriorities() {
+        Task<?> vpc = new TestTask("vpc");
+        Task<?> subnet = new TestTask("subnet");
+        Task<?> instance = new TestTask("instance");
+        subnet.dependsOn(vpc);
+        instance.dependsOn(vpc);
+        instance.dependsOn(subnet);
+
+        Tasks tasks = new Tasks();
+        tasks.add(vpc);
+        tasks.add(subnet);
+        tasks.add(instance);
+        CriticalPath.calculatePriorities(tasks);
+
+        assertEquals(1, instance.priority);
+        assertEquals(2, subnet.priority);
+        assertEquals(3, vpc.priority, "vpc -> subnet -> instance is the longest path");
+    }
+
+    @Test
+    void actualPath() {
+        Task<?> vpc = new TestTask("vpc");
+        Task<?> subnet = new TestTask("subnet");
+        Task<?> sg = new TestTask("sg");
+        Task<?> instance = new TestTask("instance");
+        subnet.dependsOn(vpc);
+        sg.dependsOn(vpc);
+        instance.dependsOn(subnet);
+        instance.dependsOn(sg);
+        vpc.endTime = 10;
+        subnet.endTime = 20;
+        sg.endTime = 30;
+        instance.endTime = 40;
+
+        Tasks tasks = new Tasks();
+        tasks.add(vpc);
+        tasks.add(subnet);
+        tasks.add(sg);
+        tasks.add(instance);
+        List<Task> path = CriticalPath.actualPath(tasks);
+
+        assertEquals(List.of(vpc, sg, instance), path);
+    }
+
+    static class TestTask extends Task<Resource> {
+        TestTask(String id) {
+            super(new Resource(id));
+        }
+
+        @Override
+        public void execute(Context context) {
+        }
+    }
+}
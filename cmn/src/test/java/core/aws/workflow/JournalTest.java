@@ -0,0 +1,50 @@
+package core.aws.workflow;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void resume() throws IOException {
+        Journal journal = new Journal(dir.resolve("workflow.journal"));
+        journal.open("SYNC", false);
+        journal.append("create-vpc:vpc", TaskState.DONE, Map.of("vpc", List.of("vpc-1")));
+        journal.append("create-sg:sg", TaskState.FAILED, Map.of());
+        journal.append("create-instance:app", TaskState.DONE, Map.of());
+        journal.append("create-instance:app", TaskState.DONE, Map.of());
+        journal.close(false);
+
+        Map<String, Journal.JournalEntry> doneTasks = new Journal(dir.resolve("workflow.journal")).doneTasks("SYNC");
+        assertEquals(1, doneTasks.size(), "failed and duplicated tasks are not resumable");
+        assertEquals(List.of("vpc-1"), doneTasks.get("create-vpc:vpc").outputs.get("vpc"));
+
+        assertThrows(AssertionError.class, () -> new Journal(dir.resolve("workflow.journal")).doneTasks("DEL"));
+    }
+
+    @Test
+    void deleteAfterCompleted() throws IOException {
+        Path path = dir.resolve("workflow.journal");
+        Journal journal = new Journal(path);
+        journal.open("SYNC", false);
+        assertTrue(Files.exists(path));
+        journal.close(true);
+        assertFalse(Files.exists(path));
+    }
+}
@@ -0,0 +1,76 @@
+package core.aws.workflow;
+
+import core.aws.util.JSON;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author neo
+ */
+class TraceTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write() throws IOException {
+        Task<?> vpc = new CriticalPathTest.TestTask("vpc");
+        vpc.scheduledTime = 2_000_000;
+        vpc.startTime = 3_000_000;
+        vpc.endTime = 7_000_000;
+        Task<?> queued = new CriticalPathTest.TestTask("queued");     // cancelled before start
+        queued.scheduledTime = 4_000_000;
+        Task<?> skipped = new CriticalPathTest.TestTask("skipped");
+        Tasks tasks = new Tasks();
+        tasks.add(vpc);
+        tasks.add(queued);
+        tasks.add(skipped);
+
+        Trace trace = new Trace("SYNC", 1_000_000);
+        trace.add(tasks);
+        Path path = dir.resolve("trace.json");
+        trace.write(path);
+
+        Map<String, Object> json = JSON.fromJSON(Map.class, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        List<Map<String, Object>> events = (List<Map<String, Object>>) json.get("traceEvents");
+        List<String> threadNames = events.stream().filter(event -> "thread_name".equals(event.get("name")))
+            .map(event -> (String) ((Map<String, Object>) event.get("args")).get("name")).collect(Collectors.toList());
+        assertEquals(List.of("TestTask:vpc", "TestTask:queued"), threadNames, "one track per scheduled task, in scheduled order");
+
+        List<Map<String, Object>> slices = events.stream().filter(event -> "X".equals(event.get("ph"))).collect(Collectors.toList());
+        assertEquals(2, slices.size(), "queued and task slices of vpc");
+        assertEquals("queued", slices.get(0).get("name"));
+        assertEquals(1000.0, slices.get(0).get("ts"), "relative to workflow start in micros");
+        assertEquals(1000.0, slices.get(0).get("dur"));
+        assertEquals("TestTask:vpc", slices.get(1).get("name"));
+        assertEquals(4000.0, slices.get(1).get("dur"));
+    }
+
+    @Test
+    void deleteOldTraces() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            Path trace = Files.createFile(dir.resolve("trace-sync-" + i + ".json"));
+            Files.setLastModifiedTime(trace, FileTime.fromMillis(i * 1000L));
+        }
+        Files.createFile(dir.resolve("workflow.journal"));
+
+        Trace.deleteOldTraces(dir, 2);
+
+        try (Stream<Path> paths = Files.list(dir)) {
+            assertEquals(List.of("trace-sync-3.json", "trace-sync-4.json", "workflow.journal"),
+                paths.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package core.aws.workflow;
+
+import core.aws.env.Context;
+import core.aws.env.Environment;
+import core.aws.env.Goal;
+import core.aws.env.Param;
+import core.aws.resource.Resource;
+import core.aws.util.Threads;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author neo
+ */
+class WorkflowTest {
+    @TempDir
+    Path dir;
+    Context context;
+
+    @BeforeEach
+    void createContext() throws IOException {
+        System.setProperty("cmn.ansible", dir.toString());
+        context = new Context();
+        context.goal = Goal.SYNC;
+        context.env = new Environment(dir);
+        context.env.workflowConcurrency = Environment.UNBOUNDED_CONCURRENCY;
+    }
+
+    @Test
+    void createExecutorService() {
+        Workflow workflow = new Workflow(new Tasks());
+
+        ThreadPoolExecutor unbounded = (ThreadPoolExecutor) workflow.createExecutorService(Environment.UNBOUNDED_CONCURRENCY);
+        assertEquals(Integer.MAX_VALUE, unbounded.getMaximumPoolSize(), "unbounded runs every ready task on its own thread");
+        unbounded.shutdown();
+
+        ThreadPoolExecutor bounded = (ThreadPoolExecutor) workflow.createExecutorService(5);
+        assertEquals(5, bounded.getCorePoolSize());
+        assertEquals(5, bounded.getMaximumPoolSize());
+        assertTrue(bounded.getQueue() instanceof PriorityBlockingQueue, "queued tasks are picked by priority");
+        bounded.shutdown();
+    }
+
+    @Test
+    void skipDependentsOfFailedTask() {
+        context.env.failFast = FailFast.OFF;
+        Task<?> failed = new TestTask("failed", () -> {
+            throw new Error("failed");
+        });
+        Task<?> dependent = new TestTask("dependent", () -> {
+        });
+        Task<?> transitiveDependent = new TestTask("transitive-dependent", () -> {
+        });
+        Task<?> independent = new TestTask("independent", () -> {
+        });
+        dependent.dependsOn(failed);
+        transitiveDependent.dependsOn(dependent);
+
+        assertThrows(IllegalStateException.class, () -> execute(failed, dependent, transitiveDependent, independent));
+
+        assertEquals(TaskState.FAILED, failed.state());
+        assertEquals(TaskState.SKIPPED, dependent.state());
+        assertEquals(TaskState.SKIPPED, transitiveDependent.state());
+        assertEquals(TaskState.DONE, independent.state());
+    }
+
+    @Test
+    void failFastSubgraph() {
+        context.env.failFast = FailFast.SUBGRAPH;
+        CountDownLatch sleeping = new CountDownLatch(1);
+        Task<?> failed = new TestTask("failed", () -> {
+            sleeping.await();
+            throw new Error("failed");
+        });
+        Task<?> connected = new TestTask("connected", () -> {
+            sleeping.countDown();
+            Threads.sleepRoughly(Duration.ofMinutes(10));   // interrupted by fail fast
+        });
+        Task<?> join = new TestTask("join", () -> {
+        });
+        Task<?> independent = new TestTask("independent", () -> {
+            sleeping.await();
+        });
+        join.dependsOn(failed);
+        join.dependsOn(connected);
+
+        assertThrows(IllegalStateException.class, () -> execute(failed, connected, join, independent));
+
+        assertEquals(TaskState.FAILED, failed.state());
+        assertEquals(TaskState.CANCELLED, connected.state(), "running task connected to failed one is interrupted");
+        assertEquals(TaskState.SKIPPED, join.state());
+        assertEquals(TaskState.DONE, independent.state(), "independent branch keeps running");
+    }
+
+    @Test
+    void failFastSubgraphWithSharedRoot() {
+        context.env.failFast = FailFast.SUBGRAPH;
+        CountDownLatch started = new CountDownLatch(2);
+        Task<?> root = new TestTask("root", () -> {
+        });
+        Task<?> failed = new TestTask("failed", () -> {
+            started.await();
+            throw new Error("failed");
+        });
+        Task<?> connected = new TestTask("connected", () -> {
+            started.countDown();
+            Threads.sleepRoughly(Duration.ofMinutes(10));   // interrupted by fail fast
+        });
+        Task<?> join = new TestTask("join", () -> {
+        });
+        Task<?> other = new TestTask("other", () -> {
+            started.countDown();
+            Thread.sleep(300);     // still running when fail fast happens
+        });
+        Task<?> otherDependent = new TestTask("other-dependent", () -> {
+        });
+        failed.dependsOn(root);
+        connected.dependsOn(root);
+        join.dependsOn(failed);
+        join.dependsOn(connected);
+        other.dependsOn(root);
+        otherDependent.dependsOn(other);
+
+        assertThrows(IllegalStateException.class, () -> execute(root, failed, connected, join, other, otherDependent));
+
+        assertEquals(TaskState.FAILED, failed.state());
+        assertEquals(TaskState.CANCELLED, connected.state(), "running task which skipped join waits for is interrupted");
+        assertEquals(TaskState.SKIPPED, join.state());
+        assertEquals(TaskState.DONE, other.state(), "branch under same done root keeps running");
+        assertEquals(TaskState.DONE, otherDependent.state());
+    }
+
+    @Test
+    void failFastAll() {
+        context.env.failFast = FailFast.ALL;
+        CountDownLatch sleeping = new CountDownLatch(1);
+        Task<?> failed = new TestTask("failed", () -> {
+            sleeping.await();
+            throw new Error("failed");
+        });
+        Task<?> independent = new TestTask("independent", () -> {
+            sleeping.countDown();
+            Threads.sleepRoughly(Duration.ofMinutes(10));
+        });
+        Task<?> dependentOfIndependent = new TestTask("dependent-of-independent", () -> {
+        });
+        dependentOfIndependent.dependsOn(independent);
+
+        assertThrows(IllegalStateException.class, () -> execute(failed, independent, dependentOfIndependent));
+
+        assertEquals(TaskState.FAILED, failed.state());
+        assertEquals(TaskState.CANCELLED, independent.state());
+        assertEquals(TaskState.SKIPPED, dependentOfIndependent.state());
+    }
+
+    @Test
+    void writeTraceInDryRun() throws Exception {
+        context.param(Param.DRY_RUN, "true");
+        execute(new TestTask("vpc", () -> {
+        }));
+
+        try (Stream<Path> paths = Files.list(context.env.runtimeDir)) {
+            List<String> files = paths.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+            assertEquals(1, files.size(), "dry-run writes trace but not journal");
+            assertTrue(files.get(0).startsWith("trace-sync-"));
+        }
+    }
+
+    private void execute(Task<?>... tasks) throws Exception {
+        Tasks workflowTasks = new Tasks();
+        for (Task<?> task : tasks) {
+            workflowTasks.add(task);
+        }
+        new Workflow(workflowTasks).execute(context);
+    }
+
+    interface TaskBody {
+        void run() throws Exception;
+    }
+
+    static class TestTask extends Task<Resource> {
+        private final TaskBody body;
+
+        TestTask(String id, TaskBody body) {
+            super(new Resource(id));
+            this.body = body;
+        }
+
+        @Override
+        public void execute(Context context) throws Exception {
+            body.run();
+        }
+    }
+}